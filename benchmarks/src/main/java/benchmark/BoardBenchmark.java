@@ -0,0 +1,49 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copying and hashing boards, as done when boards are cloned or used as
+ * map keys
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Positions.Phase phase;
+
+    private final List<ChessBoard> boards = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        for (ChessGame game : Positions.games(phase)) {
+            boards.add(game.getBoard());
+        }
+    }
+
+    @Benchmark
+    public void copy(Blackhole blackhole) {
+        for (ChessBoard board : boards) {
+            blackhole.consume(new ChessBoard(board));
+        }
+    }
+
+    @Benchmark
+    public void hash(Blackhole blackhole) {
+        for (ChessBoard board : boards) {
+            blackhole.consume(board.hashCode());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Fen;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The corpus of positions every benchmark runs over, grouped by game phase
+ * so changes that only help one kind of position show up clearly.
+ */
+public final class Positions {
+
+    public enum Phase {
+        OPENING,
+        MIDDLEGAME,
+        ENDGAME
+    }
+
+    private static final List<String> OPENING = List.of(
+            Fen.START,
+            "r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3",
+            "rnbqkb1r/pp2pppp/3p1n2/8/3NP3/8/PPP2PPP/RNBQKB1R w KQkq - 1 5",
+            "rnbqk2r/ppp1bppp/4pn2/3p4/2PP4/2N2N2/PP2PPPP/R1BQKB1R w KQkq - 4 5"
+    );
+
+    private static final List<String> MIDDLEGAME = List.of(
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w KQ - 0 8",
+            "2rq1rk1/pb1nbppp/1p2pn2/3p4/2PP4/1PN1PN2/PB2BPPP/2RQ1RK1 w - - 0 12"
+    );
+
+    private static final List<String> ENDGAME = List.of(
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "8/5pk1/6p1/8/3R4/6PP/r4PK1/8 w - - 0 40",
+            "8/8/4k3/8/2K5/8/3P4/8 w - - 0 1",
+            "6k1/5ppp/8/8/8/8/1Q3PPP/6K1 w - - 0 30"
+    );
+
+    private Positions() {
+    }
+
+    public static List<String> fens(Phase phase) {
+        return switch (phase) {
+            case OPENING -> OPENING;
+            case MIDDLEGAME -> MIDDLEGAME;
+            case ENDGAME -> ENDGAME;
+        };
+    }
+
+    public static List<ChessGame> games(Phase phase) {
+        List<ChessGame> games = new ArrayList<>();
+        for (String fen : fens(phase)) {
+            games.add(Fen.parse(fen));
+        }
+        return games;
+    }
+}
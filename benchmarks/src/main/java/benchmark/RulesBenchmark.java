@@ -0,0 +1,75 @@
+package benchmark;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legal move generation and game status checks, each run once for every
+ * position in the corpus. isSquareAttacked asks about all 64 squares.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Positions.Phase phase;
+
+    private List<ChessGame> games;
+
+    @Setup
+    public void setup() {
+        games = Positions.games(phase);
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            for (ChessPosition position : game.getBoard().getPiecePositions(game.getTeamTurn())) {
+                blackhole.consume(game.validMoves(position));
+            }
+        }
+    }
+
+    @Benchmark
+    public void isInCheck(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(game.isInCheck(game.getTeamTurn()));
+        }
+    }
+
+    @Benchmark
+    public void isSquareAttacked(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            BitBoard bits = game.getBoard().getBitBoard();
+            ChessGame.TeamColor enemy = game.getTeamTurn() == ChessGame.TeamColor.WHITE
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            for (int square = 0; square < 64; square++) {
+                blackhole.consume(bits.isSquareAttacked(square, enemy));
+            }
+        }
+    }
+
+    @Benchmark
+    public void isInCheckmate(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(game.isInCheckmate(game.getTeamTurn()));
+        }
+    }
+
+    @Benchmark
+    public void isInStalemate(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(game.isInStalemate(game.getTeamTurn()));
+        }
+    }
+}
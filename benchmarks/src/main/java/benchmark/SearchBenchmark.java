@@ -0,0 +1,65 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-depth searches of the middlegame positions with one or more
+ * threads. The score is searches per second; the nodes counter shows how
+ * nodes per second scale with the thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int DEPTH = 6;
+    private static final int TABLE_MEGABYTES = 64;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    /**
+     * Nodes searched, reported by JMH as a rate alongside the main score
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    private TranspositionTable table;
+    private ParallelSearch search;
+    private List<ChessGame> games;
+    private int next;
+
+    @Setup
+    public void setup() {
+        table = new TranspositionTable(TABLE_MEGABYTES);
+        search = new ParallelSearch(threads, table);
+        games = Positions.games(Positions.Phase.MIDDLEGAME);
+    }
+
+    @TearDown
+    public void tearDown() {
+        search.close();
+    }
+
+    @Benchmark
+    public SearchResult search(Nodes counter) {
+        // each search starts cold so later ones don't just read the table
+        table.clear();
+        SearchResult result = search.search(games.get(next++ % games.size()), SearchLimits.depth(DEPTH));
+        counter.nodes += result.nodes();
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Fen;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson serialization of whole games, the way the server stores them,
+ * against writing and reading just the position as FEN
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Positions.Phase phase;
+
+    private final Gson gson = new Gson();
+    private List<ChessGame> games;
+    private final List<String> json = new ArrayList<>();
+    private final List<String> fens = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        games = Positions.games(phase);
+        for (ChessGame game : games) {
+            json.add(gson.toJson(game));
+            fens.add(Fen.write(game));
+        }
+    }
+
+    @Benchmark
+    public void toJson(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(gson.toJson(game));
+        }
+    }
+
+    @Benchmark
+    public void fromJson(Blackhole blackhole) {
+        for (String text : json) {
+            blackhole.consume(gson.fromJson(text, ChessGame.class));
+        }
+    }
+
+    @Benchmark
+    public void roundTrip(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(gson.fromJson(gson.toJson(game), ChessGame.class));
+        }
+    }
+
+    @Benchmark
+    public void toFen(Blackhole blackhole) {
+        for (ChessGame game : games) {
+            blackhole.consume(Fen.write(game));
+        }
+    }
+
+    @Benchmark
+    public void fromFen(Blackhole blackhole) {
+        for (String text : fens) {
+            blackhole.consume(Fen.parse(text));
+        }
+    }
+}
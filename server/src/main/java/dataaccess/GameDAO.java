@@ -2,11 +2,18 @@ package dataaccess;
 
 import model.GameData;
 import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface GameDAO {
     void insertGame(GameData game) throws DataAccessException;
     GameData getGame(int gameID) throws DataAccessException;
     Collection<GameData> listGames() throws DataAccessException;
+
+    /**
+     * Hands every game to the action one at a time, without collecting them
+     * all in memory first
+     */
+    void forEachGame(Consumer<GameData> action) throws DataAccessException;
     void updateGame(GameData game) throws DataAccessException;
     void clear() throws DataAccessException;
 }
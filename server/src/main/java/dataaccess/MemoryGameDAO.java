@@ -4,6 +4,7 @@ import model.GameData;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Collection;
+import java.util.function.Consumer;
 
 public class MemoryGameDAO implements GameDAO{
     private final Map<Integer, GameData> games = new HashMap<>();
@@ -30,6 +31,11 @@ public class MemoryGameDAO implements GameDAO{
         return games.values();
     }
 
+    @Override
+    public void forEachGame(Consumer<GameData> action) throws DataAccessException {
+        games.values().forEach(action);
+    }
+
     @Override
     public void updateGame(GameData game) throws DataAccessException {
         if (!games.containsKey(game.gameID())) {
@@ -1,5 +1,7 @@
 package server;
 
+import chess.ChessGame;
+import chess.LegalMoveCache;
 import dataaccess.MemoryUserDAO;
 import dataaccess.MemoryAuthDAO;
 import dataaccess.MemoryGameDAO;
@@ -9,6 +11,8 @@ import service.GameService;
 import spark.*;
 
 public class Server {
+    // legal moves for this many (position, square) pairs are shared across all games
+    private static final int MOVE_CACHE_ENTRIES = 50_000;
 
     public int run(int desiredPort) {
         Spark.port(desiredPort);
@@ -21,6 +25,9 @@ public class Server {
         var userService = new UserService(userDAO, authDAO);
         var clearService = new ClearService(userDAO, authDAO, gameDAO);
         var gameService = new GameService(gameDAO);
+        if (ChessGame.getMoveCache() == null) {
+            ChessGame.useMoveCache(new LegalMoveCache(MOVE_CACHE_ENTRIES));
+        }
 
         //This line initializes the server and can be removed once you have a functioning endpoint 
         Spark.delete("/db", (req, res) -> {
@@ -1,11 +1,21 @@
 package service;
 
 import chess.ChessGame;
+import chess.book.OpeningBookBuilder;
+import chess.pgn.PgnWriter;
 import dataaccess.GameDAO;
 import dataaccess.DataAccessException;
 import model.GameData;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 public class GameService {
@@ -56,4 +66,68 @@ public class GameService {
         gameDAO.updateGame(updatedGame);
 
     }
+
+    /**
+     * Writes every stored game to a PGN file, one game at a time
+     *
+     * @return how many games were written
+     */
+    public long exportPgn(Path file) throws DataAccessException, IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return exportPgn(out);
+        }
+    }
+
+    /**
+     * Writes every stored game as PGN, streaming them from the database so
+     * only one is held in memory at a time
+     *
+     * @param out where to write, which is flushed but left open
+     * @return how many games were written
+     */
+    public long exportPgn(Writer out) throws DataAccessException, IOException {
+        PgnWriter writer = new PgnWriter(out);
+        try {
+            gameDAO.forEachGame(game -> {
+                try {
+                    writer.write(pgnHeaders(game), game.game());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        return writer.gamesWritten();
+    }
+
+    /**
+     * Compiles the openings of every stored game into an opening book file
+     *
+     * @param plies how many moves from the start of each game to take
+     * @return how many moves the book holds
+     */
+    public int buildOpeningBook(Path file, int plies) throws DataAccessException, IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        gameDAO.forEachGame(game -> {
+            if (game.game() != null) {
+                builder.addGame(game.game());
+            }
+        });
+        return builder.write(file);
+    }
+
+    private static Map<String, String> pgnHeaders(GameData game) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Event", game.gameName());
+        if (game.whiteUsername() != null) {
+            headers.put("White", game.whiteUsername());
+        }
+        if (game.blackUsername() != null) {
+            headers.put("Black", game.blackUsername());
+        }
+        headers.put("GameId", Integer.toString(game.gameID()));
+        return headers;
+    }
 }
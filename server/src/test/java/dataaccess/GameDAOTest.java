@@ -2,7 +2,14 @@ package dataaccess;
 
 import model.GameData;
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
 import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class GameDAOTest {
@@ -43,4 +50,17 @@ public class GameDAOTest {
         gameDAO.clear();
         assertNull(gameDAO.getGame(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testForEachGameKeepsMoveHistory() throws DataAccessException, InvalidMoveException {
+        ChessGame chessGame = new ChessGame();
+        chessGame.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        gameDAO.insertGame(new GameData(0, "alice", "bob", "Game 1", chessGame));
+        gameDAO.insertGame(new GameData(0, "carol", null, "Game 2", new ChessGame()));
+        List<GameData> games = new ArrayList<>();
+        gameDAO.forEachGame(games::add);
+        assertEquals(2, games.size());
+        GameData first = games.stream().filter(g -> g.gameName().equals("Game 1")).findFirst().orElseThrow();
+        assertArrayEquals(chessGame.getMoveHistory(), first.game().getMoveHistory());
+    }
+}
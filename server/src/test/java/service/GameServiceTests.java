@@ -1,12 +1,20 @@
 package service;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import chess.book.OpeningBook;
 import dataaccess.DataAccessException;
 import dataaccess.MemoryGameDAO;
 import model.GameData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -69,5 +77,45 @@ public class GameServiceTests {
         assertThrows(DataAccessException.class, () -> gameService.joinPlayer(gameID, ChessGame.TeamColor.WHITE, "user2"),
                 "Joining a full team should throw an exception");
     }
-}
 
+    @Test
+    void exportPgnWritesEveryGame() throws DataAccessException, IOException, InvalidMoveException {
+        int gameID = gameService.createGame("Fool's Mate");
+        gameService.joinPlayer(gameID, ChessGame.TeamColor.BLACK, "user2");
+        ChessGame chessGame = new ChessGame();
+        chessGame.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        chessGame.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        chessGame.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        chessGame.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+        GameData game = gameDAO.getGame(gameID);
+        gameDAO.updateGame(new GameData(gameID, game.whiteUsername(), game.blackUsername(), game.gameName(), chessGame));
+        gameService.createGame("Not Started");
+
+        StringWriter out = new StringWriter();
+        assertEquals(2, gameService.exportPgn(out));
+        String pgn = out.toString();
+        assertTrue(pgn.contains("[Event \"Fool's Mate\"]"));
+        assertTrue(pgn.contains("[White \"?\"]\n[Black \"user2\"]\n[Result \"0-1\"]\n[GameId \"" + gameID + "\"]"));
+        assertTrue(pgn.contains("1. f3 e5 2. g4 Qh4# 0-1"), "Moves should be written in SAN");
+        assertTrue(pgn.contains("[Event \"Not Started\"]"));
+    }
+
+    @Test
+    void buildOpeningBookFromStoredGames() throws DataAccessException, IOException, InvalidMoveException {
+        int gameID = gameService.createGame("Book Game");
+        ChessGame chessGame = new ChessGame();
+        chessGame.makeMove(new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null));
+        GameData game = gameDAO.getGame(gameID);
+        gameDAO.updateGame(new GameData(gameID, null, null, game.gameName(), chessGame));
+        gameService.createGame("Not Started");
+
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            assertEquals(1, gameService.buildOpeningBook(file, 10));
+            OpeningBook book = OpeningBook.open(file);
+            assertEquals(chessGame.getMoveHistory()[0], book.bestMove(new ChessGame()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package chess;
+
+/**
+ * Precomputed attack sets for every piece type, indexed by BitBoard square
+ * numbers. Leaper attacks are plain table lookups. Slider attacks use magic
+ * bitboards: the blockers on a piece's lines are multiplied by a per-square
+ * magic number whose top bits index a table holding the attacks for exactly
+ * that arrangement of blockers, so a rook or bishop lookup costs one
+ * multiply whatever the position.
+ */
+public final class Attacks {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long ROW_1 = 0xFFL;
+    public static final long ROW_8 = ROW_1 << 56;
+
+    // ray directions as {row step, column step}; the first four run toward higher squares
+    private static final int[][] DIRECTIONS = {
+            {+1, 0}, {0, +1}, {+1, +1}, {+1, -1},
+            {-1, 0}, {0, -1}, {-1, -1}, {-1, +1}
+    };
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int NORTH_EAST = 2;
+    private static final int NORTH_WEST = 3;
+    private static final int SOUTH = 4;
+    private static final int WEST = 5;
+    private static final int SOUTH_WEST = 6;
+    private static final int SOUTH_EAST = 7;
+
+    private static final long[][] RAYS = new long[8][64];
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+    // every square a rook or bishop could reach from a square on an empty board
+    private static final long[] LINE_RAYS = new long[64];
+    private static final long[] DIAGONAL_RAYS = new long[64];
+
+    // found once with a sparse random search; any number that indexes the
+    // square's blockers without clashes would do
+    private static final long[] ROOK_MAGIC = {
+            0x5080054001203180L, 0x0040400020001000L, 0x4180200180300019L, 0x8100210004081000L,
+            0xC600080420100200L, 0x0200241200032830L, 0x1480800081000200L, 0x0100110003408822L,
+            0x8004800020884001L, 0x0000802000400088L, 0x6002001604804020L, 0x0802000C10420020L,
+            0x0202800400080281L, 0x4002800200800400L, 0x2240808001000200L, 0x0002002080440102L,
+            0x01C0808000204006L, 0x2010004020004000L, 0x0830010100200040L, 0x0040220040100A00L,
+            0x2468004040040200L, 0x40A2008080040002L, 0x0005410100020004L, 0x0011820001008044L,
+            0xC640400080009020L, 0x0040500840002000L, 0x0022008200201040L, 0x0222001200082040L,
+            0xD004080080040080L, 0x0126008080020400L, 0xD014420400104801L, 0x0000800180004300L,
+            0x0080002000404000L, 0x8100201000C00140L, 0x1040200082801004L, 0x000201200A004010L,
+            0x0001001005000800L, 0x0018040080800200L, 0x0000D10A0C004810L, 0x0000889442002104L,
+            0x1080804000248000L, 0x1000201000404000L, 0x02A1004020010010L, 0x8840100008008080L,
+            0x4000080004008080L, 0x9024000402008080L, 0xA424040200010100L, 0x8480074424860011L,
+            0x2100800020401880L, 0x2900400080200080L, 0x2000188200402200L, 0x2030220810010300L,
+            0x2004080080040080L, 0x2208800400020080L, 0x440100220014B100L, 0x250020A400410200L,
+            0x204A102100800041L, 0x0022023320830042L, 0x5008402001001409L, 0x0080100005002009L,
+            0x000A006004081006L, 0x4411000204000801L, 0x0000061088104504L, 0x840C010024004092L
+    };
+    private static final long[] BISHOP_MAGIC = {
+            0x4111200804802140L, 0xA022100C30848020L, 0x0010840040480080L, 0x28024081001860E8L,
+            0x08A450C020910520L, 0x00950C1240011000L, 0x800402080208A090L, 0x0000440041101054L,
+            0x62C0500410042C44L, 0x089A600800808084L, 0x0000041806024424L, 0x8000082040480000L,
+            0x0808020210040380L, 0x10000A02822000B0L, 0xC000020642264000L, 0x0400145100982000L,
+            0x5040020810810208L, 0x8020840208810100L, 0x4110200104008010L, 0x0040840802004440L,
+            0x010A004420210100L, 0x0002410200522022L, 0x8A04100044140401L, 0x4901010201110122L,
+            0x0920108184502201L, 0x8182A00008480090L, 0x6052500101150200L, 0x0044010110200880L,
+            0x0001080409004008L, 0x0002020104110080L, 0x0004010042A49022L, 0x08084A0021010108L,
+            0x0808084120481205L, 0x0048080881848106L, 0x0002005001944100L, 0x2804400820020200L,
+            0x0840084100007100L, 0x00220401C1080800L, 0x1081041102040108L, 0x040403808809AC02L,
+            0x000884200820E000L, 0x8008421004021030L, 0x00AC420040400401L, 0x410010A214000802L,
+            0xA004400408204500L, 0x0C20200040414880L, 0x4110020831000041L, 0x2104011046114100L,
+            0x00040A2104200080L, 0x4008421090282200L, 0x0008088068280714L, 0x8200082084040800L,
+            0x089000090B040004L, 0xC808040830410103L, 0x0069101022004100L, 0x00C8420882021004L,
+            0x8102020084010802L, 0x000413C402480200L, 0x0000002040441048L, 0x0420020C11040914L,
+            0x0001082010202204L, 0x4009042820080894L, 0x4000454802180200L, 0x1820025001010010L
+    };
+
+    // magic lookup state per square; the attack tables for every square share SLIDER_ATTACKS
+    private static final long[] ROOK_MASK = new long[64];
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final int[] ROOK_OFFSET = new int[64];
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final int[] BISHOP_OFFSET = new int[64];
+    private static final long[] SLIDER_ATTACKS;
+
+    static {
+        int[][] knightJumps = {{-1, -2}, {+1, -2}, {+2, -1}, {+2, +1}, {-1, +2}, {+1, +2}, {-2, -1}, {-2, +1}};
+        for (int square = 0; square < 64; square++) {
+            int row = square >>> 3;
+            int col = square & 7;
+            for (int d = 0; d < 8; d++) {
+                RAYS[d][square] = ray(row, col, DIRECTIONS[d]);
+                KING[square] |= bit(row + DIRECTIONS[d][0], col + DIRECTIONS[d][1]);
+            }
+            for (int[] jump : knightJumps) {
+                KNIGHT[square] |= bit(row + jump[0], col + jump[1]);
+            }
+            LINE_RAYS[square] = RAYS[NORTH][square] | RAYS[EAST][square] | RAYS[SOUTH][square] | RAYS[WEST][square];
+            DIAGONAL_RAYS[square] = RAYS[NORTH_EAST][square] | RAYS[NORTH_WEST][square]
+                    | RAYS[SOUTH_EAST][square] | RAYS[SOUTH_WEST][square];
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = bit(row + 1, col - 1) | bit(row + 1, col + 1);
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = bit(row - 1, col - 1) | bit(row - 1, col + 1);
+        }
+        for (int from = 0; from < 64; from++) {
+            for (int d = 0; d < 8; d++) {
+                long ray = RAYS[d][from];
+                while (ray != 0) {
+                    int to = Long.numberOfTrailingZeros(ray);
+                    ray &= ray - 1;
+                    BETWEEN[from][to] = RAYS[d][from] & ~RAYS[d][to] & ~(1L << to);
+                    LINE[from][to] = RAYS[d][from] | RAYS[(d + 4) % 8][from] | (1L << from);
+                }
+            }
+        }
+
+        int size = 0;
+        for (int square = 0; square < 64; square++) {
+            ROOK_MASK[square] = innerRay(NORTH, square) | innerRay(EAST, square)
+                    | innerRay(SOUTH, square) | innerRay(WEST, square);
+            ROOK_SHIFT[square] = 64 - Long.bitCount(ROOK_MASK[square]);
+            ROOK_OFFSET[square] = size;
+            size += 1 << Long.bitCount(ROOK_MASK[square]);
+        }
+        for (int square = 0; square < 64; square++) {
+            BISHOP_MASK[square] = innerRay(NORTH_EAST, square) | innerRay(NORTH_WEST, square)
+                    | innerRay(SOUTH_WEST, square) | innerRay(SOUTH_EAST, square);
+            BISHOP_SHIFT[square] = 64 - Long.bitCount(BISHOP_MASK[square]);
+            BISHOP_OFFSET[square] = size;
+            size += 1 << Long.bitCount(BISHOP_MASK[square]);
+        }
+        SLIDER_ATTACKS = new long[size];
+        for (int square = 0; square < 64; square++) {
+            fillMagicTable(square, ROOK_MASK[square], ROOK_MAGIC[square], ROOK_SHIFT[square], ROOK_OFFSET[square], true);
+            fillMagicTable(square, BISHOP_MASK[square], BISHOP_MAGIC[square], BISHOP_SHIFT[square], BISHOP_OFFSET[square], false);
+        }
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * @return a ray without its last square, since a piece on the edge of the
+     * board blocks nothing beyond it
+     */
+    private static long innerRay(int direction, int square) {
+        long ray = RAYS[direction][square];
+        if (ray == 0) {
+            return 0L;
+        }
+        long edge = direction < SOUTH ? Long.highestOneBit(ray) : Long.lowestOneBit(ray);
+        return ray & ~edge;
+    }
+
+    /**
+     * Fills a square's part of the slider table with the attacks for every
+     * arrangement of blockers in its mask
+     */
+    private static void fillMagicTable(int square, long mask, long magic, int shift, int offset, boolean rook) {
+        boolean[] filled = new boolean[1 << (64 - shift)];
+        // walk every subset of the mask, starting and ending with the empty one
+        long blockers = 0L;
+        do {
+            long attacks = rook ? slowRook(square, blockers) : slowBishop(square, blockers);
+            int index = (int) ((blockers * magic) >>> shift);
+            if (filled[index] && SLIDER_ATTACKS[offset + index] != attacks) {
+                throw new IllegalStateException("Magic number for square " + square + " has a collision");
+            }
+            filled[index] = true;
+            SLIDER_ATTACKS[offset + index] = attacks;
+            blockers = (blockers - mask) & mask;
+        } while (blockers != 0);
+    }
+
+    private static long bit(int row, int col) {
+        return (row >= 0 && row < 8 && col >= 0 && col < 8) ? 1L << (row * 8 + col) : 0L;
+    }
+
+    private static long ray(int row, int col, int[] direction) {
+        long ray = 0L;
+        for (int r = row + direction[0], c = col + direction[1]; r >= 0 && r < 8 && c >= 0 && c < 8;
+             r += direction[0], c += direction[1]) {
+            ray |= 1L << (r * 8 + c);
+        }
+        return ray;
+    }
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given team attacks from the square
+     */
+    public static long pawn(ChessGame.TeamColor team, int square) {
+        return PAWN[team.ordinal()][square];
+    }
+
+    public static long rook(int square, long occupied) {
+        return SLIDER_ATTACKS[ROOK_OFFSET[square]
+                + (int) (((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+    }
+
+    public static long bishop(int square, long occupied) {
+        return SLIDER_ATTACKS[BISHOP_OFFSET[square]
+                + (int) (((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+    }
+
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared line, or
+     * nothing if they do not share one
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * @return the whole line through two squares, or nothing if they do not
+     * share one
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    /**
+     * Rook attacks found by following each ray to its first blocker; used to
+     * fill the magic tables and to check them
+     */
+    static long slowRook(int square, long occupied) {
+        return positiveRay(NORTH, square, occupied) | positiveRay(EAST, square, occupied)
+                | negativeRay(SOUTH, square, occupied) | negativeRay(WEST, square, occupied);
+    }
+
+    static long slowBishop(int square, long occupied) {
+        return positiveRay(NORTH_EAST, square, occupied) | positiveRay(NORTH_WEST, square, occupied)
+                | negativeRay(SOUTH_WEST, square, occupied) | negativeRay(SOUTH_EAST, square, occupied);
+    }
+
+    private static long positiveRay(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[direction][Long.numberOfTrailingZeros(blockers)];
+        }
+        return ray;
+    }
+
+    private static long negativeRay(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[direction][63 - Long.numberOfLeadingZeros(blockers)];
+        }
+        return ray;
+    }
+
+    /**
+     * @return the pieces of the attacking team that attack the square, given
+     * the occupancy to use for sliding pieces
+     */
+    public static long attackersTo(BitBoard bits, int square, long occupied, ChessGame.TeamColor attacker) {
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long queens = bits.pieces(attacker, ChessPiece.PieceType.QUEEN);
+        return (KNIGHT[square] & bits.pieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (KING[square] & bits.pieces(attacker, ChessPiece.PieceType.KING))
+                | (pawn(defender, square) & bits.pieces(attacker, ChessPiece.PieceType.PAWN))
+                | (rook(square, occupied) & (bits.pieces(attacker, ChessPiece.PieceType.ROOK) | queens))
+                | (bishop(square, occupied) & (bits.pieces(attacker, ChessPiece.PieceType.BISHOP) | queens));
+    }
+
+    /**
+     * Checks whether any piece of the attacking team attacks the square by
+     * looking outward from the square itself: a knight's jump away for
+     * knights, a pawn's capture away for pawns, and so on. Nothing is
+     * allocated and the cheap leaper tests run before the slider rays.
+     *
+     * @return True if the square is attacked
+     */
+    public static boolean isAttacked(BitBoard bits, int square, ChessGame.TeamColor attacker, long occupied) {
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if ((pawn(defender, square) & bits.pieces(attacker, ChessPiece.PieceType.PAWN)) != 0
+                || (KNIGHT[square] & bits.pieces(attacker, ChessPiece.PieceType.KNIGHT)) != 0
+                || (KING[square] & bits.pieces(attacker, ChessPiece.PieceType.KING)) != 0) {
+            return true;
+        }
+        long queens = bits.pieces(attacker, ChessPiece.PieceType.QUEEN);
+        long rooks = bits.pieces(attacker, ChessPiece.PieceType.ROOK) | queens;
+        if ((rooks & LINE_RAYS[square]) != 0 && (rook(square, occupied) & rooks) != 0) {
+            return true;
+        }
+        long bishops = bits.pieces(attacker, ChessPiece.PieceType.BISHOP) | queens;
+        return (bishops & DIAGONAL_RAYS[square]) != 0 && (bishop(square, occupied) & bishops) != 0;
+    }
+
+    /**
+     * @return every square the team attacks, given the occupancy to use for
+     * sliding pieces
+     */
+    public static long attackedBy(BitBoard bits, ChessGame.TeamColor attacker, long occupied) {
+        long attacked = 0L;
+        long pawns = bits.pieces(attacker, ChessPiece.PieceType.PAWN);
+        if (attacker == ChessGame.TeamColor.WHITE) {
+            attacked |= ((pawns & ~FILE_A) << 7) | ((pawns & ~FILE_H) << 9);
+        } else {
+            attacked |= ((pawns & ~FILE_H) >>> 7) | ((pawns & ~FILE_A) >>> 9);
+        }
+        for (long knights = bits.pieces(attacker, ChessPiece.PieceType.KNIGHT); knights != 0; knights &= knights - 1) {
+            attacked |= KNIGHT[Long.numberOfTrailingZeros(knights)];
+        }
+        long queens = bits.pieces(attacker, ChessPiece.PieceType.QUEEN);
+        for (long sliders = bits.pieces(attacker, ChessPiece.PieceType.BISHOP) | queens; sliders != 0; sliders &= sliders - 1) {
+            attacked |= bishop(Long.numberOfTrailingZeros(sliders), occupied);
+        }
+        for (long sliders = bits.pieces(attacker, ChessPiece.PieceType.ROOK) | queens; sliders != 0; sliders &= sliders - 1) {
+            attacked |= rook(Long.numberOfTrailingZeros(sliders), occupied);
+        }
+        for (long kings = bits.pieces(attacker, ChessPiece.PieceType.KING); kings != 0; kings &= kings - 1) {
+            attacked |= KING[Long.numberOfTrailingZeros(kings)];
+        }
+        return attacked;
+    }
+}
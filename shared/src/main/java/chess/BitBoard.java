@@ -0,0 +1,261 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Bitboard form of a chessboard: one 64-bit set for each of the twelve
+ * piece kinds, plus per-team and total occupancy masks.
+ * <p>
+ * Squares are numbered 0 to 63, with 0 being row 1 column 1 and 63 being
+ * row 8 column 8. Piece kinds are numbered {@code team * 6 + type}, using the
+ * ordinals of {@link ChessGame.TeamColor} and {@link ChessPiece.PieceType}.
+ * A ChessBoard keeps one of these in step with its array of pieces.
+ * <p>
+ * Alongside the Zobrist key, every put and remove also keeps running totals
+ * of the {@link PieceSquareTables} values and the game phase, so evaluating
+ * material and piece placement never needs a scan of the board.
+ */
+public final class BitBoard {
+    public static final int NO_PIECE = -1;
+    public static final int PIECE_KINDS = 12;
+
+    private static final ChessGame.TeamColor[] TEAMS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private final long[] pieces = new long[PIECE_KINDS];
+    private final long[] teams = new long[2];
+    private long occupied;
+    private long key;
+    private int middlegame;
+    private int endgame;
+    private int phase;
+    private final byte[] mailbox = new byte[64];
+
+    public BitBoard() {
+        Arrays.fill(mailbox, (byte) NO_PIECE);
+    }
+
+    //    creates a copy of the bitboard
+    public BitBoard(BitBoard other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, PIECE_KINDS);
+        System.arraycopy(other.teams, 0, teams, 0, 2);
+        System.arraycopy(other.mailbox, 0, mailbox, 0, 64);
+        occupied = other.occupied;
+        key = other.key;
+        middlegame = other.middlegame;
+        endgame = other.endgame;
+        phase = other.phase;
+    }
+
+    /**
+     * Builds a bitboard from the array form used by ChessBoard
+     *
+     * @param squares pieces indexed by [row - 1][column - 1]
+     * @return a bitboard holding the same pieces
+     */
+    public static BitBoard fromArray(ChessPiece[][] squares) {
+        BitBoard bits = new BitBoard();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = squares[row][col];
+                if (piece != null) {
+                    bits.put(row * 8 + col, pieceIndex(piece));
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Converts this bitboard back to the array form used by ChessBoard
+     *
+     * @return pieces indexed by [row - 1][column - 1]
+     */
+    public ChessPiece[][] toArray() {
+        ChessPiece[][] squares = new ChessPiece[8][8];
+        for (int square = 0; square < 64; square++) {
+            int piece = mailbox[square];
+            if (piece != NO_PIECE) {
+                squares[square >>> 3][square & 7] = toPiece(piece);
+            }
+        }
+        return squares;
+    }
+
+    /**
+     * @return a copy of the piece kind on every square, NO_PIECE where empty
+     */
+    byte[] copyMailbox() {
+        return mailbox.clone();
+    }
+
+    /**
+     * @return the piece kind on the square, or NO_PIECE if it is empty
+     */
+    public int pieceAt(int square) {
+        return mailbox[square];
+    }
+
+    /**
+     * @return the set of squares holding the given piece kind
+     */
+    public long pieces(int pieceIndex) {
+        return pieces[pieceIndex];
+    }
+
+    /**
+     * @return the set of squares holding the given team's type of piece
+     */
+    public long pieces(ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return pieces[pieceIndex(team, type)];
+    }
+
+    /**
+     * @return the set of squares holding any piece of the given team
+     */
+    public long occupancy(ChessGame.TeamColor team) {
+        return teams[team.ordinal()];
+    }
+
+    /**
+     * @return the set of squares holding any piece
+     */
+    public long occupied() {
+        return occupied;
+    }
+
+    /**
+     * @return the square of the team's king, or -1 if it has none; read
+     * straight off the king bitboard, which every put and remove keeps current
+     */
+    public int kingSquare(ChessGame.TeamColor team) {
+        long king = pieces[team.ordinal() * 6 + ChessPiece.PieceType.KING.ordinal()];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * @return the Zobrist key of the piece placement
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * @return White's material and placement advantage by the middlegame tables
+     */
+    public int middlegameScore() {
+        return middlegame;
+    }
+
+    /**
+     * @return White's material and placement advantage by the endgame tables
+     */
+    public int endgameScore() {
+        return endgame;
+    }
+
+    /**
+     * @return how much non-pawn material is left, from 0 in a bare endgame up
+     * to {@link PieceSquareTables#PHASE_TOTAL} (or more after promotions)
+     */
+    public int phase() {
+        return phase;
+    }
+
+    /**
+     * @return True if any piece of the attacking team attacks the square
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor attacker) {
+        return Attacks.isAttacked(this, square, attacker, occupied);
+    }
+
+    void put(int square, int pieceIndex) {
+        remove(square);
+        long bit = 1L << square;
+        pieces[pieceIndex] |= bit;
+        teams[pieceIndex / 6] |= bit;
+        occupied |= bit;
+        key ^= Zobrist.piece(pieceIndex, square);
+        middlegame += PieceSquareTables.middlegame(pieceIndex, square);
+        endgame += PieceSquareTables.endgame(pieceIndex, square);
+        phase += PieceSquareTables.phase(pieceIndex);
+        mailbox[square] = (byte) pieceIndex;
+    }
+
+    void remove(int square) {
+        int pieceIndex = mailbox[square];
+        if (pieceIndex == NO_PIECE) {
+            return;
+        }
+        long bit = ~(1L << square);
+        pieces[pieceIndex] &= bit;
+        teams[pieceIndex / 6] &= bit;
+        occupied &= bit;
+        key ^= Zobrist.piece(pieceIndex, square);
+        middlegame -= PieceSquareTables.middlegame(pieceIndex, square);
+        endgame -= PieceSquareTables.endgame(pieceIndex, square);
+        phase -= PieceSquareTables.phase(pieceIndex);
+        mailbox[square] = NO_PIECE;
+    }
+
+    void clear() {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(teams, 0L);
+        Arrays.fill(mailbox, (byte) NO_PIECE);
+        occupied = 0L;
+        key = 0L;
+        middlegame = 0;
+        endgame = 0;
+        phase = 0;
+    }
+
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static int pieceIndex(ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return team.ordinal() * 6 + type.ordinal();
+    }
+
+    public static int pieceIndex(ChessPiece piece) {
+        return pieceIndex(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    public static ChessGame.TeamColor teamOf(int pieceIndex) {
+        return TEAMS[pieceIndex / 6];
+    }
+
+    public static ChessPiece.PieceType typeOf(int pieceIndex) {
+        return TYPES[pieceIndex % 6];
+    }
+
+    public static ChessPiece toPiece(int pieceIndex) {
+        return ChessPiece.of(pieceIndex);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BitBoard that = (BitBoard) o;
+        return key == that.key && Arrays.equals(pieces, that.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+}
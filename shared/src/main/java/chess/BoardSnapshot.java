@@ -0,0 +1,127 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * An immutable copy of a game's position: one byte per square plus the
+ * turn, castling, en passant and clock state. Snapshots never change once
+ * made, so they can be handed to any number of threads, such as spectator
+ * broadcasts or list views, while the game itself keeps playing moves.
+ * <p>
+ * Get one from {@link ChessGame#snapshot()} on the thread that plays the
+ * game's moves.
+ */
+public final class BoardSnapshot {
+    // piece kinds as numbered by BitBoard, or NO_PIECE
+    private final byte[] squares;
+    private final ChessGame.TeamColor teamTurn;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+    private final long key;
+
+    BoardSnapshot(byte[] squares, ChessGame.TeamColor teamTurn, int castlingRights, int enPassantSquare,
+                  int halfmoveClock, int fullmoveNumber, long key) {
+        this.squares = squares;
+        this.teamTurn = teamTurn;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.key = key;
+    }
+
+    /**
+     * @return the piece at the position, or null if the square is empty
+     */
+    public ChessPiece getPiece(ChessPosition position) {
+        int piece = squares[BitBoard.square(position)];
+        return piece == BitBoard.NO_PIECE ? null : ChessPiece.of(piece);
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return teamTurn;
+    }
+
+    /**
+     * @return the castling rights, as a {@link Castling} mask
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return the square the side to move can capture onto en passant, or
+     * null if there is none
+     */
+    public ChessPosition getEnPassantPosition() {
+        return enPassantSquare < 0 ? null : ChessPosition.of(enPassantSquare);
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return the Zobrist key of the position, as {@link ChessGame#getZobristKey()}
+     */
+    public long getZobristKey() {
+        return key;
+    }
+
+    /**
+     * @return a new board holding the snapshot's pieces
+     */
+    public ChessBoard toBoard() {
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            if (squares[square] != BitBoard.NO_PIECE) {
+                board.putPiece(square, ChessPiece.of(squares[square]));
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @return a new game in the snapshot's position, with no earlier history
+     */
+    public ChessGame toGame() {
+        ChessGame game = new ChessGame();
+        game.setBoard(toBoard());
+        game.setTeamTurn(teamTurn);
+        game.setState(castlingRights, enPassantSquare, halfmoveClock, fullmoveNumber);
+        return game;
+    }
+
+    /**
+     * @return True if this snapshot still describes the game's position
+     */
+    boolean matches(ChessGame game) {
+        return key == game.getZobristKey() && halfmoveClock == game.getHalfmoveClock()
+                && fullmoveNumber == game.getFullmoveNumber();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BoardSnapshot that = (BoardSnapshot) o;
+        return key == that.key && teamTurn == that.teamTurn && castlingRights == that.castlingRights
+                && enPassantSquare == that.enPassantSquare && halfmoveClock == that.halfmoveClock
+                && fullmoveNumber == that.fullmoveNumber && Arrays.equals(squares, that.squares);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key);
+    }
+}
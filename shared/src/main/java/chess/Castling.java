@@ -0,0 +1,120 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Castling rights as a four bit mask, one bit per king and side. A right
+ * only says the king and that rook have not moved; whether castling is
+ * playable right now also depends on the squares between them.
+ */
+public final class Castling {
+    public static final int NONE = 0;
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL = 15;
+
+    static final int WHITE_KING_HOME = 4;
+    static final int BLACK_KING_HOME = 60;
+
+    // rights still held after a move touches each square: moving from or
+    // capturing on a king or rook home square loses the rights it guards
+    private static final int[] KEPT = new int[64];
+
+    static {
+        Arrays.fill(KEPT, ALL);
+        KEPT[0] &= ~WHITE_QUEENSIDE;
+        KEPT[7] &= ~WHITE_KINGSIDE;
+        KEPT[WHITE_KING_HOME] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        KEPT[56] &= ~BLACK_QUEENSIDE;
+        KEPT[63] &= ~BLACK_KINGSIDE;
+        KEPT[BLACK_KING_HOME] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
+    private Castling() {
+    }
+
+    /**
+     * @return the rights left after a move between two squares
+     */
+    static int afterMove(int rights, int from, int to) {
+        return rights & KEPT[from] & KEPT[to];
+    }
+
+    /**
+     * Works out the rights a board set up from scratch can have: a king and
+     * rook still on their starting squares are taken not to have moved
+     */
+    static int fromBoard(BitBoard bits) {
+        int rights = NONE;
+        long whiteRooks = bits.pieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        long blackRooks = bits.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        if (bits.kingSquare(ChessGame.TeamColor.WHITE) == WHITE_KING_HOME) {
+            rights |= (whiteRooks & (1L << 7)) != 0 ? WHITE_KINGSIDE : 0;
+            rights |= (whiteRooks & 1L) != 0 ? WHITE_QUEENSIDE : 0;
+        }
+        if (bits.kingSquare(ChessGame.TeamColor.BLACK) == BLACK_KING_HOME) {
+            rights |= (blackRooks & (1L << 63)) != 0 ? BLACK_KINGSIDE : 0;
+            rights |= (blackRooks & (1L << 56)) != 0 ? BLACK_QUEENSIDE : 0;
+        }
+        return rights;
+    }
+
+    /**
+     * @return the kingside right for a team
+     */
+    static int kingside(ChessGame.TeamColor team) {
+        return team == ChessGame.TeamColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+    }
+
+    /**
+     * @return the queenside right for a team
+     */
+    static int queenside(ChessGame.TeamColor team) {
+        return team == ChessGame.TeamColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+    }
+
+    /**
+     * @return the rights in FEN form, such as KQkq, or - for none
+     */
+    public static String toString(int rights) {
+        if (rights == NONE) {
+            return "-";
+        }
+        StringBuilder text = new StringBuilder(4);
+        if ((rights & WHITE_KINGSIDE) != 0) {
+            text.append('K');
+        }
+        if ((rights & WHITE_QUEENSIDE) != 0) {
+            text.append('Q');
+        }
+        if ((rights & BLACK_KINGSIDE) != 0) {
+            text.append('k');
+        }
+        if ((rights & BLACK_QUEENSIDE) != 0) {
+            text.append('q');
+        }
+        return text.toString();
+    }
+
+    /**
+     * @param text rights in FEN form, such as KQkq or -
+     * @return the rights as a mask
+     */
+    public static int parse(String text) {
+        int rights = NONE;
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case 'K' -> rights |= WHITE_KINGSIDE;
+                case 'Q' -> rights |= WHITE_QUEENSIDE;
+                case 'k' -> rights |= BLACK_KINGSIDE;
+                case 'q' -> rights |= BLACK_QUEENSIDE;
+                case '-' -> {
+                }
+                default -> throw new IllegalArgumentException("Bad castling rights: " + text);
+            }
+        }
+        return rights;
+    }
+}
@@ -1,6 +1,7 @@
 package chess;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -11,6 +12,8 @@ import java.util.Objects;
  */
 public class ChessBoard {
     private final ChessPiece[][] squares = new ChessPiece[8][8];
+    // built on first use so boards read in by Gson pick it up from squares
+    private transient BitBoard bits;
 
     public ChessBoard() {
         
@@ -20,15 +23,30 @@ public class ChessBoard {
     public ChessBoard(ChessBoard board) {
         for (int row = 0; row < 8; row++) {
             for (int col = 0; col < 8; col++) {
-                if (board.squares[row][col] != null) {
-                    this.squares[row][col] = new ChessPiece(
-                            board.squares[row][col].getTeamColor(),
-                            board.squares[row][col].getPieceType()
-                    );
+                ChessPiece piece = board.squares[row][col];
+                if (piece != null) {
+                    this.squares[row][col] = ChessPiece.of(piece.getTeamColor(), piece.getPieceType());
                 }
             }
         }
+        if (board.bits != null) {
+            this.bits = new BitBoard(board.bits);
+        }
+    }
+
+    /**
+     * Creates a chessboard from its bitboard form
+     *
+     * @param bits the pieces to place on the board
+     */
+    public ChessBoard(BitBoard bits) {
+        ChessPiece[][] pieces = bits.toArray();
+        for (int row = 0; row < 8; row++) {
+            System.arraycopy(pieces[row], 0, squares[row], 0, 8);
+        }
+        this.bits = new BitBoard(bits);
     }
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -36,7 +54,29 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        putPiece(BitBoard.square(position), piece);
+    }
+
+    /**
+     * Places a piece, or clears the square when the piece is null, using a
+     * BitBoard square number
+     */
+    void putPiece(int square, ChessPiece piece) {
+        squares[square >>> 3][square & 7] = piece;
+        if (bits != null) {
+            if (piece == null) {
+                bits.remove(square);
+            } else {
+                bits.put(square, BitBoard.pieceIndex(piece));
+            }
+        }
+    }
+
+    /**
+     * @return the piece on a BitBoard square number, or null if it is empty
+     */
+    ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
     }
 
     /**
@@ -50,6 +90,81 @@ public class ChessBoard {
         return squares[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * Determines if a square is attacked by any piece of the given team,
+     * whether or not that piece could legally move there
+     *
+     * @param position the square to test
+     * @param attacker the team whose pieces may be attacking it
+     * @return True if the square is attacked
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor attacker) {
+        return getBitBoard().isSquareAttacked(BitBoard.square(position), attacker);
+    }
+
+    /**
+     * Finds a team's king without searching the board
+     *
+     * @param team the team whose king to find
+     * @return the king's position, or null if the team has no king
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor team) {
+        int square = getBitBoard().kingSquare(team);
+        return square < 0 ? null : ChessPosition.of(square);
+    }
+
+    /**
+     * Lists where a team's pieces stand, visiting only occupied squares
+     *
+     * @param team the team whose pieces to list
+     * @return the positions of the team's pieces, bottom row first
+     */
+    public List<ChessPosition> getPiecePositions(ChessGame.TeamColor team) {
+        return positions(getBitBoard().occupancy(team));
+    }
+
+    /**
+     * Lists where a team's pieces of one type stand
+     *
+     * @param team the team whose pieces to list
+     * @param type the kind of piece to list
+     * @return the positions of those pieces, bottom row first
+     */
+    public List<ChessPosition> getPiecePositions(ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return positions(getBitBoard().pieces(team, type));
+    }
+
+    private static List<ChessPosition> positions(long squares) {
+        List<ChessPosition> positions = new ArrayList<>(Long.bitCount(squares));
+        for (; squares != 0; squares &= squares - 1) {
+            positions.add(ChessPosition.of(Long.numberOfTrailingZeros(squares)));
+        }
+        return positions;
+    }
+
+    /**
+     * Gets the bitboard form of this board, which is kept in step with
+     * every change made through addPiece
+     *
+     * @return the live bitboard for this board
+     */
+    public BitBoard getBitBoard() {
+        if (bits == null) {
+            bits = BitBoard.fromArray(squares);
+        }
+        return bits;
+    }
+
+    /**
+     * Gets the Zobrist key of the piece placement, which is updated as
+     * pieces are added and removed rather than recomputed
+     *
+     * @return a 64-bit hash of where every piece is
+     */
+    public long getZobristKey() {
+        return getBitBoard().key();
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
@@ -60,38 +175,41 @@ public class ChessBoard {
                 squares[i][j] = null;
             }
         }
+        if (bits != null) {
+            bits.clear();
+        }
 //        white pawns
         for (int col=1; col<= 8; col++){
-            addPiece(new ChessPosition(2, col), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(2, col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
         }
 //        black pawns
         for (int col=1; col<= 8; col++){
-            addPiece(new ChessPosition(7, col), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            addPiece(ChessPosition.of(7, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
 //        white rooks
-        addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(1, 8), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
 //        black rooks
-        addPiece(new ChessPosition(8, 1), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
-        addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
 //        white knights
-        addPiece(new ChessPosition(1, 2), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(1, 7), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(1, 7), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
 //        black knights
-        addPiece(new ChessPosition(8, 2), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
-        addPiece(new ChessPosition(8, 7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        addPiece(ChessPosition.of(8, 7), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
 //        white bishops
-        addPiece(new ChessPosition(1, 3), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(1, 6), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(1, 6), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
 //        black bishops
-        addPiece(new ChessPosition(8, 3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
-        addPiece(new ChessPosition(8, 6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 3), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        addPiece(ChessPosition.of(8, 6), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
 //       white king and queen
-        addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(1, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(1, 4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
 //        black king and queen
-        addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
-        addPiece(new ChessPosition(8, 4), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        addPiece(ChessPosition.of(8, 5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        addPiece(ChessPosition.of(8, 4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
 
     }
 
@@ -106,6 +224,6 @@ public class ChessBoard {
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getZobristKey());
     }
 }
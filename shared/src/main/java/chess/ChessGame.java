@@ -1,6 +1,7 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -12,11 +13,60 @@ import java.util.Collection;
 public class ChessGame {
     private ChessBoard board;
     private TeamColor currentTurn;
+    // castling rights as a Castling mask
+    private int castlingRights = Castling.ALL;
+    // the square a pawn may capture onto en passant, or -1; only set when a
+    // pawn of the side to move stands ready to capture, so positions that
+    // differ only in an unusable en passant square hash the same
+    private int enPassantSquare = -1;
+    // plies since the last capture or pawn move, for the fifty-move rule
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    // the moves played since the position was last set, for spotting
+    // repetitions and writing the game out
+    private MoveHistory history = new MoveHistory();
+    private final transient MoveUndo scratchUndo = new MoveUndo();
+    private final transient MoveGenerator generator = new MoveGenerator();
+    private final transient MoveList scratchMoves = new MoveList();
+    // the last snapshot handed out, reused until the position changes
+    private transient BoardSnapshot snapshot;
+    private static volatile LegalMoveCache moveCache;
 
     public ChessGame() {
         this.board = new ChessBoard();
         this.currentTurn = TeamColor.WHITE;
         this.board.resetBoard();
+        resetHistory();
+    }
+
+    /**
+     * Creates a game in the given position with nothing played yet; the rest
+     * of a FEN record's state is set afterwards with {@link #setState}
+     *
+     * @param board the pieces, which the game takes over
+     * @param team  the side to move
+     */
+    ChessGame(ChessBoard board, TeamColor team) {
+        this.board = board;
+        this.currentTurn = team;
+        this.castlingRights = Castling.fromBoard(board.getBitBoard());
+        resetHistory();
+    }
+
+    /**
+     * Creates a copy of a game, including the history used to spot
+     * repetitions, that can be played on without touching the original
+     *
+     * @param other the game to copy
+     */
+    public ChessGame(ChessGame other) {
+        this.board = new ChessBoard(other.board);
+        this.currentTurn = other.currentTurn;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.halfmoveClock = other.halfmoveClock;
+        this.fullmoveNumber = other.fullmoveNumber;
+        this.history = new MoveHistory(other.history);
     }
 
     /**
@@ -33,6 +83,123 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.currentTurn = team;
+        this.enPassantSquare = -1;
+        resetHistory();
+    }
+
+    /**
+     * Gets the Zobrist key of the position: the board's piece placement
+     * combined with the side to move, castling rights and en passant file
+     *
+     * @return a 64-bit hash of the position
+     */
+    public long getZobristKey() {
+        return positionKey(currentTurn);
+    }
+
+    /**
+     * Takes an immutable copy of the position that other threads can read
+     * while this game goes on. Repeated calls between moves return the same
+     * snapshot, so taking one after every move costs a 64-byte copy at most.
+     * Call it from the thread that plays the game's moves.
+     *
+     * @return the current position
+     */
+    public BoardSnapshot snapshot() {
+        BoardSnapshot current = snapshot;
+        if (current == null || !current.matches(this)) {
+            current = new BoardSnapshot(board.getBitBoard().copyMailbox(), currentTurn, castlingRights,
+                    enPassantSquare, halfmoveClock, fullmoveNumber, getZobristKey());
+            snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * @return the castling rights still held, as a {@link Castling} mask
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return the square the side to move can capture onto en passant, or
+     * null if there is none
+     */
+    public ChessPosition getEnPassantPosition() {
+        return enPassantSquare < 0 ? null : ChessPosition.of(enPassantSquare);
+    }
+
+    /**
+     * @return plies played since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the number of the current move, starting at 1 and going up
+     * after each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Sets the state a position carries beyond its pieces and turn, as read
+     * from a FEN record, and starts the repetition history afresh
+     *
+     * @param castlingRights  a {@link Castling} mask
+     * @param enPassantSquare the en passant target square, or -1
+     */
+    void setState(int castlingRights, int enPassantSquare, int halfmoveClock, int fullmoveNumber) {
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare >= 0 && canCaptureEnPassant(enPassantSquare, currentTurn)
+                ? enPassantSquare : -1;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        resetHistory();
+    }
+
+    /**
+     * Determines if the fifty-move rule lets either player claim a draw: a
+     * hundred plies with no capture or pawn move
+     *
+     * @return True if a draw can be claimed
+     */
+    public boolean isFiftyMoveDraw() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * Counts how often the current position has occurred, including now.
+     * Only positions since the last capture or pawn move, with the same side
+     * to move, are compared, since nothing before then can repeat.
+     *
+     * @return the number of times the position has occurred
+     */
+    public int getRepetitionCount() {
+        MoveHistory history = history();
+        long[] keys = history.keys;
+        long key = keys[history.size - 1];
+        int count = 1;
+        int oldest = Math.max(0, history.size - 1 - halfmoveClock);
+        for (int i = history.size - 3; i >= oldest; i -= 2) {
+            if (keys[i] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Determines if the current position has occurred three times, which
+     * lets either player claim a draw
+     *
+     * @return True if the position has repeated three times
+     */
+    public boolean isThreefoldRepetition() {
+        return getRepetitionCount() >= 3;
     }
 
     /**
@@ -55,32 +222,189 @@ public class ChessGame {
         if (piece == null) {
             return null;
         }
+        int[] moves = legalMoves(BitBoard.square(startPosition), piece.getTeamColor());
+        Collection<ChessMove> validMoves = new ArrayList<>(moves.length);
+        for (int move : moves) {
+            validMoves.add(Move.toChessMove(move));
+        }
+        return validMoves;
+    }
+
+    /**
+     * Adds every legal move for the team whose turn it is, encoded with
+     * {@link Move}
+     *
+     * @param moves the list to add the moves to
+     */
+    public void generateLegalMoves(MoveList moves) {
+        generatorFor(currentTurn).generate(moves);
+    }
 
-        Collection<ChessMove> possibleMoves = piece.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
+    /**
+     * Adds the legal captures and promotions for the team whose turn it is
+     *
+     * @param moves the list to add the moves to
+     */
+    public void generateNoisyMoves(MoveList moves) {
+        generatorFor(currentTurn).generate(board.getBitBoard().occupancy(currentTurn), MoveGenerator.NOISY, moves);
+    }
+
+    /**
+     * Adds the legal moves that neither capture nor promote, castling
+     * included, for the team whose turn it is
+     *
+     * @param moves the list to add the moves to
+     */
+    public void generateQuietMoves(MoveList moves) {
+        generatorFor(currentTurn).generate(board.getBitBoard().occupancy(currentTurn), MoveGenerator.QUIET, moves);
+    }
 
-        for (ChessMove move : possibleMoves) {
-            if (isMoveValid(move, piece)) {
-                validMoves.add(move);
+    /**
+     * Checks a move remembered from another position, such as a killer move
+     * or a transposition table entry, against this one
+     *
+     * @param move a {@link Move}-encoded move
+     * @return the legal move with the same squares and promotion, flagged as
+     * it would be generated here, or Move.NONE if there is none
+     */
+    public int legalMove(int move) {
+        if (move == Move.NONE) {
+            return Move.NONE;
+        }
+        scratchMoves.clear();
+        generatorFor(currentTurn).generate(1L << Move.from(move), scratchMoves);
+        for (int i = 0; i < scratchMoves.size(); i++) {
+            if (Move.sameMove(scratchMoves.get(i), move)) {
+                return scratchMoves.get(i);
             }
         }
+        return Move.NONE;
+    }
 
-        return validMoves;
+    /**
+     * Sets a cache of legal moves shared by every game, or turns caching off
+     *
+     * @param cache the cache to use, or null for none
+     */
+    public static void useMoveCache(LegalMoveCache cache) {
+        moveCache = cache;
     }
 
-    private boolean isMoveValid(ChessMove move, ChessPiece piece) {
-        ChessBoard boardTemp = new ChessBoard(board);
-        ChessPiece movingPiece = new ChessPiece(piece.getTeamColor(), piece.getPieceType());
+    /**
+     * @return the legal move cache shared by every game, or null if there is none
+     */
+    public static LegalMoveCache getMoveCache() {
+        return moveCache;
+    }
+
+    private int[] legalMoves(int square, TeamColor team) {
+        LegalMoveCache cache = moveCache;
+        if (cache == null) {
+            return generateValidMoves(square, team);
+        }
+
+        long key = LegalMoveCache.key(positionKey(team), square);
+        int[] moves = cache.get(key);
+        if (moves == null) {
+            moves = generateValidMoves(square, team);
+            cache.put(key, moves);
+        }
+        return moves;
+    }
+
+    /**
+     * @return the position key as seen by the given team when working out
+     * its moves; en passant only belongs to the side to move
+     */
+    private long positionKey(TeamColor team) {
+        long key = board.getZobristKey() ^ Zobrist.sideToMove(team) ^ Zobrist.castling(castlingRights);
+        if (team == currentTurn && enPassantSquare >= 0) {
+            key ^= Zobrist.enPassant(enPassantSquare & 7);
+        }
+        return key;
+    }
+
+    private MoveGenerator generatorFor(TeamColor team) {
+        return generator.init(board.getBitBoard(), team, castlingRights, team == currentTurn ? enPassantSquare : -1);
+    }
+
+    private int[] generateValidMoves(int square, TeamColor team) {
+        scratchMoves.clear();
+        generatorFor(team).generate(1L << square, scratchMoves);
+        return scratchMoves.toArray();
+    }
+
+    /**
+     * @return True if a pawn of the team stands beside the pawn that just
+     * skipped over the square, ready to capture it en passant
+     */
+    private boolean canCaptureEnPassant(int square, TeamColor team) {
+        TeamColor enemy = (team == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        return (Attacks.pawn(enemy, square) & board.getBitBoard().pieces(team, ChessPiece.PieceType.PAWN)) != 0;
+    }
+
+    private void resetHistory() {
+        history.reset();
+    }
 
-        boardTemp.addPiece(move.getEndPosition(), movingPiece);
-        boardTemp.addPiece(move.getStartPosition(), null);
+    /**
+     * @return the history, with its position keys worked out if they
+     * aren't yet
+     */
+    private MoveHistory history() {
+        if (!history.keyed) {
+            replayHistory();
+        }
+        return history;
+    }
+
+    /**
+     * Works out the position keys by replaying the moves from the start
+     * position. A history that doesn't lead to the current position, such as
+     * one stored before games kept their moves, is dropped, and the game
+     * starts over from where it stands.
+     */
+    private void replayHistory() {
+        MoveHistory history = this.history;
+        history.keyed = true;
+        if (history.start != null && history.size > 1) {
+            ChessGame replay = history.start.toGame();
+            history.keys[0] = replay.getZobristKey();
+            int played = 1;
+            while (played < history.size) {
+                int move = replay.legalMove(history.moves[played - 1]);
+                if (move == Move.NONE) {
+                    break;
+                }
+                replay.makeMove(move, scratchUndo);
+                history.moves[played - 1] = move;
+                history.keys[played++] = replay.getZobristKey();
+            }
+            if (played == history.size && replay.getZobristKey() == getZobristKey()) {
+                return;
+            }
+        }
+        history.start = null;
+        history.size = 1;
+        history.keys[0] = getZobristKey();
+    }
 
-        ChessBoard originalBoard = board;
-        board = boardTemp;
-        boolean isValidMove = !isInCheck(piece.getTeamColor());
-        board = originalBoard;
+    /**
+     * @return the position the move history starts from, as FEN: the
+     * starting position, or wherever the board or turn was last set
+     */
+    public String getStartFen() {
+        BoardSnapshot start = history().start;
+        return Fen.write(start == null ? this : start.toGame());
+    }
 
-        return isValidMove;
+    /**
+     * @return every move played since the start position, oldest first,
+     * {@link Move}-encoded
+     */
+    public int[] getMoveHistory() {
+        MoveHistory history = history();
+        return Arrays.copyOf(history.moves, history.size - 1);
     }
 
     /**
@@ -98,77 +422,167 @@ public class ChessGame {
             throw new InvalidMoveException("Invalid move: It's not your turn.");
         }
 
-        Collection<ChessMove> validMoves = validMoves(move.getStartPosition());
-        if (!validMoves.contains(move)) {
-            throw new InvalidMoveException("Invalid move: The move is not legal.");
+        int requested = Move.of(move);
+        for (int legal : legalMoves(Move.from(requested), currentTurn)) {
+            if (Move.sameMove(legal, requested)) {
+                makeMove(legal, scratchUndo);
+                return;
+            }
         }
+        throw new InvalidMoveException("Invalid move: The move is not legal.");
+    }
 
-        if (move.getPromotionPiece() != null) {
-            board.addPiece(move.getEndPosition(), new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
-        } else {
-            board.addPiece(move.getEndPosition(), piece);
-        }
+    /**
+     * Plays a move in place without checking that it is legal, and hands the
+     * turn to the other team. The undo record is filled in so the move can be
+     * taken back with unmakeMove.
+     *
+     * @param move chess move to play
+     * @param undo record to fill in for taking the move back
+     */
+    public void makeMove(ChessMove move, MoveUndo undo) {
+        makeMove(withFlags(Move.of(move)), undo);
+    }
 
-        board.addPiece(move.getStartPosition(), null);
-        currentTurn = (currentTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+    /**
+     * ChessMoves don't say whether they castle or capture en passant, so
+     * work it out from the board
+     */
+    private int withFlags(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = board.getPiece(from);
+        if (piece == null) {
+            return move;
+        }
+        if (board.getPiece(to) != null) {
+            move |= Move.CAPTURE;
+        }
+        int step = Math.abs(to - from);
+        if (piece.getPieceType() == ChessPiece.PieceType.KING && step == 2) {
+            move |= Move.CASTLE;
+        } else if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            if (step == 16) {
+                move |= Move.DOUBLE_PUSH;
+            } else if (to == enPassantSquare && step != 8) {
+                move |= Move.CAPTURE | Move.EN_PASSANT;
+            }
+        }
+        return move;
     }
 
     /**
-     * Determines if the given team is in check
+     * Plays a {@link Move}-encoded move in place without checking that it is
+     * legal, and hands the turn to the other team. The move's flags must be
+     * set as the move generator sets them.
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @param move encoded move to play
+     * @param undo record to fill in for taking the move back
      */
-    public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition kingPosition = findKingPosition(teamColor);
-        if (kingPosition == null) {
-            return false;
+    public void makeMove(int move, MoveUndo undo) {
+        MoveHistory history = history();
+        if (history.size == 1) {
+            history.start = snapshot();
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = board.getPiece(from);
+        undo.move = move;
+        undo.movedPiece = piece;
+        undo.previousTurn = currentTurn;
+        undo.previousCastlingRights = castlingRights;
+        undo.previousEnPassantSquare = enPassantSquare;
+        undo.previousHalfmoveClock = halfmoveClock;
+        undo.previousFullmoveNumber = fullmoveNumber;
+
+        if (Move.isEnPassant(move)) {
+            int captured = capturedPawnSquare(move);
+            undo.capturedPiece = board.getPiece(captured);
+            board.putPiece(captured, null);
+        } else {
+            undo.capturedPiece = board.getPiece(to);
         }
 
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition currentPosition = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(currentPosition);
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        if (promotion != null) {
+            board.putPiece(to, ChessPiece.of(piece.getTeamColor(), promotion));
+        } else {
+            board.putPiece(to, piece);
+        }
+        board.putPiece(from, null);
+
+        if (Move.isCastle(move)) {
+            // the rook jumps to the square the king passed over
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            board.putPiece(rookTo, board.getPiece(rookFrom));
+            board.putPiece(rookFrom, null);
+        }
 
-                if (piece != null && piece.getTeamColor() != teamColor && canAttackKing(piece, currentPosition, kingPosition)) {
-                    return true;
-                }
-            }
+        TeamColor team = piece.getTeamColor();
+        currentTurn = (team == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        castlingRights = Castling.afterMove(castlingRights, from, to);
+        enPassantSquare = -1;
+        if ((move & Move.DOUBLE_PUSH) != 0 && canCaptureEnPassant((from + to) / 2, currentTurn)) {
+            enPassantSquare = (from + to) / 2;
         }
+        boolean irreversible = undo.capturedPiece != null || piece.getPieceType() == ChessPiece.PieceType.PAWN;
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+        if (team == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        history.push(move, getZobristKey());
+    }
 
-        return false;
+    private static int capturedPawnSquare(int move) {
+        // the captured pawn is on the mover's starting row, in the end square's column
+        return (Move.from(move) & ~7) | (Move.to(move) & 7);
     }
 
-    private boolean canAttackKing(ChessPiece piece, ChessPosition currentPosition, ChessPosition kingPosition) {
-        Collection<ChessMove> possibleMoves = piece.pieceMoves(board, currentPosition);
-        for (ChessMove move : possibleMoves) {
-            if (move.getEndPosition().equals(kingPosition)) {
-                return true;
-            }
+    /**
+     * Takes back the last move played with makeMove(move, undo)
+     *
+     * @param undo the record filled in when the move was played
+     */
+    public void unmakeMove(MoveUndo undo) {
+        int move = undo.move;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.isCastle(move)) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rookTo = (from + to) / 2;
+            board.putPiece(rookFrom, board.getPiece(rookTo));
+            board.putPiece(rookTo, null);
         }
-        return false;
+        board.putPiece(from, undo.movedPiece);
+        if (Move.isEnPassant(move)) {
+            board.putPiece(to, null);
+            board.putPiece(capturedPawnSquare(move), undo.capturedPiece);
+        } else {
+            board.putPiece(to, undo.capturedPiece);
+        }
+        currentTurn = undo.previousTurn;
+        castlingRights = undo.previousCastlingRights;
+        enPassantSquare = undo.previousEnPassantSquare;
+        halfmoveClock = undo.previousHalfmoveClock;
+        fullmoveNumber = undo.previousFullmoveNumber;
+        history.size--;
     }
 
     /**
-     * Finds the king's position for a certain team
-     * @param teamColor which team's king you want to find
-     * @return teamColor's king position
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
      */
-    private ChessPosition findKingPosition(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-
-                if (piece != null &&
-                        piece.getPieceType() == ChessPiece.PieceType.KING &&
-                        piece.getTeamColor() == teamColor) {
-
-                    return position;
-                }
-            }
+    public boolean isInCheck(TeamColor teamColor) {
+        BitBoard bits = board.getBitBoard();
+        int king = bits.kingSquare(teamColor);
+        if (king < 0) {
+            return false;
         }
-        return null;
+        TeamColor enemy = (teamColor == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        return bits.isSquareAttacked(king, enemy);
     }
 
     /**
@@ -185,20 +599,7 @@ public class ChessGame {
     }
 
     private boolean helper(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition position = new ChessPosition(row, col);
-                ChessPiece piece = board.getPiece(position);
-
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    Collection<ChessMove> validMoves = validMoves(position);
-                    if (!validMoves.isEmpty()) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+        return !generatorFor(teamColor).hasLegalMove();
     }
 
     /**
@@ -222,6 +623,10 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        this.castlingRights = Castling.fromBoard(board.getBitBoard());
+        this.enPassantSquare = -1;
+        this.halfmoveClock = 0;
+        resetHistory();
     }
 
     /**
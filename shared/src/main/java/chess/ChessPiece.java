@@ -11,6 +11,17 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPiece {
+    // one shared instance per team and type, indexed like BitBoard pieces
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[team.ordinal() * 6 + type.ordinal()] = new ChessPiece(team, type);
+            }
+        }
+    }
+
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
@@ -19,8 +30,26 @@ public class ChessPiece {
         this.type = type;
     }
 
+    /**
+     * Returns the shared instance for a team and piece type. Pieces are
+     * immutable, so the engine hands these out instead of allocating.
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return PIECES[pieceColor.ordinal() * 6 + type.ordinal()];
+    }
+
+    /**
+     * @return the shared instance for a piece numbered as in {@link BitBoard}
+     */
+    static ChessPiece of(int pieceIndex) {
+        return PIECES[pieceIndex];
+    }
+
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -76,17 +105,13 @@ public class ChessPiece {
                 calculateKingMoves(board, myPosition, moves, row, col);
                 break;
             case QUEEN:
-                calculateQueenMoves(board, myPosition, moves, row, col);
-                break;
             case BISHOP:
-                calculateBishopMoves(board, myPosition, moves, row, col);
+            case ROOK:
+                calculateSliderMoves(board, myPosition, moves);
                 break;
             case KNIGHT:
                 calculateKnightMoves(board, myPosition, moves, row, col);
                 break;
-            case ROOK:
-                calculateRookMoves(board, myPosition, moves, row, col);
-                break;
             case PAWN:
                 calculatePawnMoves(board, myPosition, moves, row, col);
                 break;
@@ -102,21 +127,6 @@ public class ChessPiece {
         directionsKing(board, myPosition, moves, row, col, kingDirections);
     }
 
-    private void calculateQueenMoves(ChessBoard board, ChessPosition myPosition, Collection<ChessMove> moves, int row, int col) {
-        int[][] queenDirections = {
-                {0, -1}, {0, +1}, {+1, 0}, {-1, 0}, {-1, +1},
-                {-1, -1}, {+1, -1}, {+1, +1}
-        };
-        directionsQueen(board, myPosition, moves, row, col, queenDirections);
-    }
-
-    private void calculateBishopMoves(ChessBoard board, ChessPosition myPosition, Collection<ChessMove> moves, int row, int col) {
-        int[][] bishopDirections = {
-                {-1, +1}, {-1, -1}, {+1, -1}, {+1, +1}
-        };
-        directionsQueen(board, myPosition, moves, row, col, bishopDirections);
-    }
-
     private void calculateKnightMoves(ChessBoard board, ChessPosition myPosition, Collection<ChessMove> moves, int row, int col) {
         int[][] knightDirections = {
                 {-1, -2}, {+1, -2}, {+2, -1}, {+2, +1},
@@ -125,11 +135,22 @@ public class ChessPiece {
         directionsKing(board, myPosition, moves, row, col, knightDirections);
     }
 
-    private void calculateRookMoves(ChessBoard board, ChessPosition myPosition, Collection<ChessMove> moves, int row, int col) {
-        int[][] rookDirections = {
-                {0, -1}, {0, +1}, {+1, 0}, {-1, 0}
+    /**
+     * Adds a rook, bishop or queen's moves straight from its attack set,
+     * looked up in the magic tables for the current occupancy
+     */
+    private void calculateSliderMoves(ChessBoard board, ChessPosition myPosition, Collection<ChessMove> moves) {
+        BitBoard bits = board.getBitBoard();
+        int square = BitBoard.square(myPosition);
+        long occupied = bits.occupied();
+        long targets = switch (type) {
+            case ROOK -> Attacks.rook(square, occupied);
+            case BISHOP -> Attacks.bishop(square, occupied);
+            default -> Attacks.queen(square, occupied);
         };
-        directionsQueen(board, myPosition, moves, row, col, rookDirections);
+        for (targets &= ~bits.occupancy(pieceColor); targets != 0; targets &= targets - 1) {
+            moves.add(new ChessMove(myPosition, ChessPosition.of(Long.numberOfTrailingZeros(targets)), null));
+        }
     }
 
     private void calculatePawnMoves(ChessBoard board, ChessPosition myPosition, Collection<ChessMove> moves, int row, int col) {
@@ -158,7 +179,7 @@ public class ChessPiece {
                 continue;
             }
 
-            ChessPosition newPosition = new ChessPosition(newRow, newCol);
+            ChessPosition newPosition = ChessPosition.of(newRow, newCol);
             if (board.getPiece(newPosition) == null) {
                 addPawnMove(board, myPosition, moves, newRow, newPosition);
             } else {
@@ -177,7 +198,7 @@ public class ChessPiece {
                 continue;
             }
 
-            ChessPosition newPosition = new ChessPosition(newRow, newCol);
+            ChessPosition newPosition = ChessPosition.of(newRow, newCol);
             ChessPiece target = board.getPiece(newPosition);
             if (target != null && target.getTeamColor() != pieceColor) {
                 addPawnMove(board, myPosition, moves, newRow, newPosition);
@@ -198,34 +219,6 @@ public class ChessPiece {
         }
     }
 
-    private void directionsQueen(ChessBoard board, ChessPosition myPosition, Collection<ChessMove> moves,
-                                 int row, int col, int[][] directions) {
-        for (int[] direction : directions) {
-            int newRow = row;
-            int newCol = col;
-
-            while (true) {
-                newRow += direction[0];
-                newCol += direction[1];
-
-                if (!inBounds(newRow, newCol)) {
-                    break;
-                }
-
-                ChessPosition newPosition = new ChessPosition(newRow, newCol);
-                if (!canMove(newPosition, board)) {
-                    break;
-                }
-
-                moves.add(new ChessMove(myPosition, newPosition, null));
-                if (board.getPiece(newPosition) != null) {
-                    break;
-                }
-            }
-        }
-    }
-
-
     private void directionsKing(ChessBoard board, ChessPosition myPosition, Collection<ChessMove> moves,
                                 int row, int col, int[][] directions) {
         for (int[] direction : directions) {
@@ -233,7 +226,7 @@ public class ChessPiece {
             int newCol = col + direction[1];
 
             if (inBounds(newRow, newCol)) {
-                ChessPosition newPosition = new ChessPosition(newRow, newCol);
+                ChessPosition newPosition = ChessPosition.of(newRow, newCol);
                 if (canMove(newPosition, board)) {
                     moves.add(new ChessMove(myPosition, newPosition, null));
                 }
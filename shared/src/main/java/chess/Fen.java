@@ -0,0 +1,251 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation: the pieces row by
+ * row from row 8, the side to move, castling rights, the en passant target
+ * square, the halfmove clock and the fullmove number. For example, the
+ * starting position is {@value #START}.
+ * <p>
+ * Parsing is a single pass over the characters with no splitting or regular
+ * expressions, writing pieces straight onto a new board. The fields after
+ * the pieces may be left off and default to White to move, no castling, no
+ * en passant square and clocks of 0 and 1.
+ * <p>
+ * An en passant square is only kept when a pawn can actually capture onto
+ * it, the same rule the game itself follows, so FEN written by this class
+ * reads back to the same game and writes out again unchanged.
+ */
+public final class Fen {
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // indexed by BitBoard piece index: White's king to pawn, then Black's
+    private static final String PIECE_LETTERS = "KQBNRPkqbnrp";
+
+    private final String text;
+    private int index;
+
+    private Fen(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Sets up a game from a FEN record
+     *
+     * @param fen the position in Forsyth-Edwards Notation
+     * @return a game in that position, with an empty move history
+     * @throws IllegalArgumentException if the record is malformed
+     */
+    public static ChessGame parse(String fen) {
+        Fen parser = new Fen(fen.strip());
+        ChessBoard board = parser.readPlacement();
+        ChessGame.TeamColor team = parser.readTeam();
+        ChessGame game = new ChessGame(board, team);
+        int castling = parser.readCastling();
+        int enPassant = parser.readEnPassant();
+        int halfmove = parser.readNumber(0);
+        int fullmove = parser.readNumber(1);
+        if (parser.index < parser.text.length()) {
+            throw parser.error("Unexpected text after the fullmove number");
+        }
+        game.setState(castling, enPassant, halfmove, fullmove);
+        return game;
+    }
+
+    /**
+     * Reads just the pieces of a FEN record; any fields after them are ignored
+     *
+     * @param fen the position in Forsyth-Edwards Notation
+     * @return a board holding the pieces
+     * @throws IllegalArgumentException if the piece placement is malformed
+     */
+    public static ChessBoard parseBoard(String fen) {
+        return new Fen(fen.strip()).readPlacement();
+    }
+
+    /**
+     * @return the game's position as a six-field FEN record
+     */
+    public static String write(ChessGame game) {
+        StringBuilder fen = new StringBuilder(90);
+        writePlacement(game.getBoard().getBitBoard(), fen);
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        fen.append(Castling.toString(game.getCastlingRights())).append(' ');
+        ChessPosition enPassant = game.getEnPassantPosition();
+        if (enPassant == null) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + enPassant.getColumn() - 1)).append(enPassant.getRow());
+        }
+        fen.append(' ').append(game.getHalfmoveClock());
+        fen.append(' ').append(game.getFullmoveNumber());
+        return fen.toString();
+    }
+
+    /**
+     * @return the piece placement field alone for the board
+     */
+    public static String write(ChessBoard board) {
+        StringBuilder fen = new StringBuilder(72);
+        writePlacement(board.getBitBoard(), fen);
+        return fen.toString();
+    }
+
+    private static void writePlacement(BitBoard bits, StringBuilder fen) {
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                int piece = bits.pieceAt(BitBoard.square(row, col));
+                if (piece == BitBoard.NO_PIECE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(PIECE_LETTERS.charAt(piece));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+    }
+
+    private ChessBoard readPlacement() {
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int col = 1;
+        while (index < text.length() && text.charAt(index) != ' ') {
+            char c = text.charAt(index);
+            if (c == '/') {
+                if (col != 9 || row == 1) {
+                    throw error("Row " + row + " does not have eight squares");
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 9) {
+                    throw error("Row " + row + " has more than eight squares");
+                }
+            } else {
+                int piece = PIECE_LETTERS.indexOf(c);
+                if (piece < 0) {
+                    throw error("Unknown piece '" + c + "'");
+                }
+                if (col > 8) {
+                    throw error("Row " + row + " has more than eight squares");
+                }
+                board.putPiece(BitBoard.square(row, col), ChessPiece.of(piece));
+                col++;
+            }
+            index++;
+        }
+        if (row != 1 || col != 9) {
+            throw error("Piece placement should have eight rows of eight squares");
+        }
+        return board;
+    }
+
+    private ChessGame.TeamColor readTeam() {
+        if (!nextField()) {
+            return ChessGame.TeamColor.WHITE;
+        }
+        char c = text.charAt(index++);
+        if (c != 'w' && c != 'b') {
+            throw error("Side to move should be 'w' or 'b'");
+        }
+        endOfField();
+        return c == 'w' ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    private int readCastling() {
+        if (!nextField()) {
+            return Castling.NONE;
+        }
+        int rights = Castling.NONE;
+        if (text.charAt(index) == '-') {
+            index++;
+        } else {
+            while (index < text.length() && text.charAt(index) != ' ') {
+                rights |= switch (text.charAt(index)) {
+                    case 'K' -> Castling.WHITE_KINGSIDE;
+                    case 'Q' -> Castling.WHITE_QUEENSIDE;
+                    case 'k' -> Castling.BLACK_KINGSIDE;
+                    case 'q' -> Castling.BLACK_QUEENSIDE;
+                    default -> throw error("Bad castling rights");
+                };
+                index++;
+            }
+        }
+        endOfField();
+        return rights;
+    }
+
+    private int readEnPassant() {
+        if (!nextField()) {
+            return -1;
+        }
+        if (text.charAt(index) == '-') {
+            index++;
+            endOfField();
+            return -1;
+        }
+        if (index + 1 >= text.length()) {
+            throw error("Bad en passant square");
+        }
+        char file = text.charAt(index);
+        char rank = text.charAt(index + 1);
+        if (file < 'a' || file > 'h' || (rank != '3' && rank != '6')) {
+            throw error("Bad en passant square");
+        }
+        index += 2;
+        endOfField();
+        return BitBoard.square(rank - '0', file - 'a' + 1);
+    }
+
+    private int readNumber(int missing) {
+        if (!nextField()) {
+            return missing;
+        }
+        int value = 0;
+        int start = index;
+        while (index < text.length() && text.charAt(index) >= '0' && text.charAt(index) <= '9') {
+            value = value * 10 + (text.charAt(index) - '0');
+            if (value > 100_000) {
+                throw error("Move number out of range");
+            }
+            index++;
+        }
+        if (index == start) {
+            throw error("Expected a number");
+        }
+        endOfField();
+        return value;
+    }
+
+    /**
+     * Skips the spaces before a field
+     *
+     * @return False if the record ends instead
+     */
+    private boolean nextField() {
+        while (index < text.length() && text.charAt(index) == ' ') {
+            index++;
+        }
+        return index < text.length();
+    }
+
+    private void endOfField() {
+        if (index < text.length() && text.charAt(index) != ' ') {
+            throw error("Unexpected '" + text.charAt(index) + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at character " + (index + 1) + " of FEN: " + text);
+    }
+}
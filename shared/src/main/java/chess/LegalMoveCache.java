@@ -0,0 +1,123 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of legal moves keyed by position hash and
+ * starting square, so positions many games pass through (popular openings
+ * especially) only have their moves worked out once. Moves are stored
+ * {@link Move}-encoded, a few bytes each.
+ * <p>
+ * Entries are split across segments, each a small LRU map behind its own
+ * lock, so concurrent games rarely wait on each other. Keys are 64-bit
+ * Zobrist hashes; a collision between two different positions is possible
+ * in principle but vanishingly unlikely at any realistic cache size.
+ */
+public final class LegalMoveCache {
+    private static final int SEGMENTS = 16;
+    private static final long SQUARE_MIX = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Point-in-time counters for a cache
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity the most entries to hold before evicting the least
+     *                 recently used
+     */
+    public LegalMoveCache(int capacity) {
+        if (capacity < SEGMENTS) {
+            throw new IllegalArgumentException("Cache capacity must be at least " + SEGMENTS);
+        }
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity / SEGMENTS);
+        }
+    }
+
+    /**
+     * Combines a position key and a starting square into a cache key
+     */
+    public static long key(long positionKey, int square) {
+        return positionKey ^ ((square + 1) * SQUARE_MIX);
+    }
+
+    /**
+     * @return the cached moves for the key, or null if there are none
+     */
+    public int[] get(long key) {
+        Segment segment = segmentFor(key);
+        int[] moves;
+        synchronized (segment) {
+            moves = segment.get(key);
+        }
+        if (moves == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return moves;
+    }
+
+    /**
+     * Caches the moves for the key. The array must not be changed afterwards.
+     */
+    public void put(long key, int[] moves) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, moves);
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public Stats stats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Segment segmentFor(long key) {
+        return segments[(int) (key >>> 60) & (SEGMENTS - 1)];
+    }
+
+    private final class Segment extends LinkedHashMap<Long, int[]> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
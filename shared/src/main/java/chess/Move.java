@@ -0,0 +1,115 @@
+package chess;
+
+/**
+ * Packs a move into an int so move lists can be plain int arrays.
+ * <p>
+ * Bits 0-5 hold the start square and bits 6-11 the end square, as BitBoard
+ * square numbers. Bits 12-14 hold the promotion piece's type ordinal plus
+ * one, or zero for no promotion. The bits above that are flags describing
+ * the move. Zero is never a real move, so it is used as {@link #NONE}.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int DOUBLE_PUSH = 1 << 16;
+    // the king's two-square step; the rook's move is implied
+    public static final int CASTLE = 1 << 17;
+    // also flagged CAPTURE; the captured pawn is beside the end square, not on it
+    public static final int EN_PASSANT = 1 << 18;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+    // start, end and promotion: the part of a move a ChessMove can express
+    private static final int IDENTITY_MASK = 0x7FFF;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | flags;
+    }
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promotionBits = promotion == null ? 0 : (promotion.ordinal() + 1) << PROMOTION_SHIFT;
+        return from | (to << 6) | promotionBits | flags;
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & SQUARE_MASK;
+    }
+
+    /**
+     * @return the type of piece the pawn promotes to, or null if this is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int bits = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return bits == 0 ? null : TYPES[bits - 1];
+    }
+
+    public static boolean isPromotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        return (move & CASTLE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    /**
+     * @return True if the two moves have the same start, end and promotion,
+     * whatever their flags
+     */
+    public static boolean sameMove(int first, int second) {
+        return ((first ^ second) & IDENTITY_MASK) == 0;
+    }
+
+    /**
+     * Encodes a ChessMove without any flags, for comparing with sameMove
+     */
+    public static int of(ChessMove move) {
+        return encode(BitBoard.square(move.getStartPosition()), BitBoard.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.of(from(move)), ChessPosition.of(to(move)), promotion(move));
+    }
+
+    /**
+     * @return the move in coordinate notation, such as e2e4 or a7a8q
+     */
+    public static String toString(int move) {
+        StringBuilder text = new StringBuilder(5);
+        appendSquare(text, from(move));
+        appendSquare(text, to(move));
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion != null) {
+            text.append(switch (promotion) {
+                case QUEEN -> 'q';
+                case ROOK -> 'r';
+                case BISHOP -> 'b';
+                case KNIGHT -> 'n';
+                default -> '?';
+            });
+        }
+        return text.toString();
+    }
+
+    private static void appendSquare(StringBuilder text, int square) {
+        text.append((char) ('a' + (square & 7))).append((char) ('1' + (square >>> 3)));
+    }
+}
@@ -0,0 +1,302 @@
+package chess;
+
+/**
+ * Generates only legal moves for one team. The pieces checking the king and
+ * the pieces pinned to it are worked out once from the bitboards, so every
+ * move is known to be legal when it is emitted rather than being played on
+ * the board and tested for check afterwards.
+ * <p>
+ * Castling and en passant come from the game state passed to {@link #init}.
+ * A team with no king has no moves ruled out, matching how ChessGame treats
+ * boards set up without one. Generators are reset for each position with
+ * {@link #init} and write {@link Move}-encoded moves to a MoveList, so
+ * generation allocates nothing.
+ */
+final class MoveGenerator {
+    // which moves to generate: captures and promotions, everything else, or both
+    static final int NOISY = 1;
+    static final int QUIET = 2;
+    static final int ALL = NOISY | QUIET;
+
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT
+    };
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int QUEEN = ChessPiece.PieceType.QUEEN.ordinal();
+    private static final int BISHOP = ChessPiece.PieceType.BISHOP.ordinal();
+    private static final int KNIGHT = ChessPiece.PieceType.KNIGHT.ordinal();
+    private static final int ROOK = ChessPiece.PieceType.ROOK.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+
+    private BitBoard bits;
+    private ChessGame.TeamColor team;
+    private ChessGame.TeamColor enemy;
+    private long own;
+    private long occupied;
+    private int kingSquare;
+    private long checkers;
+    private long pinned;
+    private long checkMask;
+    private long kingDanger;
+    private boolean kingDangerKnown;
+    private int castlingRights;
+    private int enPassantSquare;
+
+    MoveGenerator() {
+    }
+
+    MoveGenerator(BitBoard bits, ChessGame.TeamColor team) {
+        init(bits, team);
+    }
+
+    /**
+     * Prepares to generate moves for a team in the position on the bitboard
+     *
+     * @return this generator
+     */
+    MoveGenerator init(BitBoard bits, ChessGame.TeamColor team) {
+        return init(bits, team, Castling.NONE, -1);
+    }
+
+    /**
+     * Prepares to generate moves for a team, including castling and en
+     * passant
+     *
+     * @param castlingRights  the rights still held, as a {@link Castling} mask
+     * @param enPassantSquare the square a pawn may capture onto en passant,
+     *                        or -1 if there is none
+     * @return this generator
+     */
+    MoveGenerator init(BitBoard bits, ChessGame.TeamColor team, int castlingRights, int enPassantSquare) {
+        this.bits = bits;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.team = team;
+        this.enemy = team == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        this.own = bits.occupancy(team);
+        this.occupied = bits.occupied();
+        this.kingDangerKnown = false;
+
+        kingSquare = bits.kingSquare(team);
+        if (kingSquare < 0) {
+            checkers = 0L;
+            pinned = 0L;
+            checkMask = -1L;
+            return this;
+        }
+        checkers = Attacks.attackersTo(bits, kingSquare, occupied, enemy);
+
+        if (checkers == 0) {
+            checkMask = -1L;
+        } else if (Long.bitCount(checkers) == 1) {
+            checkMask = checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+        } else {
+            checkMask = 0L;
+        }
+
+        // enemy sliders that would hit the king if one of our pieces stepped aside
+        long enemyPieces = bits.occupancy(enemy);
+        long queens = bits.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Attacks.rook(kingSquare, enemyPieces) & (bits.pieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (Attacks.bishop(kingSquare, enemyPieces) & (bits.pieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        long pins = 0L;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(kingSquare, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                pins |= blockers;
+            }
+        }
+        pinned = pins;
+        return this;
+    }
+
+    /**
+     * @return True if the team's king is attacked
+     */
+    boolean inCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * @return True if the team has at least one legal move
+     */
+    boolean hasLegalMove() {
+        if (kingSquare >= 0 && targets(kingSquare) != 0) {
+            return true;
+        }
+        for (long pieces = own & ~(kingSquare >= 0 ? 1L << kingSquare : 0L); pieces != 0; pieces &= pieces - 1) {
+            if (targets(Long.numberOfTrailingZeros(pieces)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the legal moves of the team's pieces standing on the given squares
+     *
+     * @param from  the squares to generate moves from
+     * @param moves where to add the moves
+     */
+    void generate(long from, MoveList moves) {
+        generate(from, ALL, moves);
+    }
+
+    /**
+     * Adds some kinds of legal move of the team's pieces on the given
+     * squares, so a search can look at captures before it spends time
+     * generating quiet moves
+     *
+     * @param from  the squares to generate moves from
+     * @param kinds NOISY for captures and promotions, QUIET for the rest, or ALL
+     * @param moves where to add the moves
+     */
+    void generate(long from, int kinds, MoveList moves) {
+        long enemyPieces = bits.occupancy(enemy);
+        long promotionRows = Attacks.ROW_1 | Attacks.ROW_8;
+        long enPassant = enPassantSquare >= 0 ? 1L << enPassantSquare : 0L;
+        for (long pieces = from & own; pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            long targets = targets(square);
+            boolean pawn = bits.pieceAt(square) % 6 == PAWN;
+            if (kinds != ALL) {
+                long noisy = pawn ? enemyPieces | promotionRows | enPassant : enemyPieces;
+                targets &= kinds == NOISY ? noisy : ~noisy;
+            }
+            if (targets == 0) {
+                continue;
+            }
+            boolean promotes = pawn && (targets & promotionRows) != 0;
+            for (; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                int flags = (enemyPieces & (1L << to)) != 0 ? Move.CAPTURE : 0;
+                if (pawn && to == enPassantSquare) {
+                    flags = Move.CAPTURE | Move.EN_PASSANT;
+                }
+                if (promotes) {
+                    for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                        moves.add(Move.encode(square, to, promotion, flags));
+                    }
+                } else {
+                    if (pawn && Math.abs(to - square) == 16) {
+                        flags |= Move.DOUBLE_PUSH;
+                    }
+                    moves.add(Move.encode(square, to, flags));
+                }
+            }
+        }
+        if ((kinds & QUIET) != 0 && kingSquare >= 0 && (from & (1L << kingSquare)) != 0) {
+            addCastles(moves);
+        }
+    }
+
+    /**
+     * Adds the castling moves the team can play: the right is still held,
+     * king and rook stand on their squares, nothing stands between them, and
+     * the king is not in check and does not pass through or land on an
+     * attacked square
+     */
+    private void addCastles(MoveList moves) {
+        int home = team == ChessGame.TeamColor.WHITE ? Castling.WHITE_KING_HOME : Castling.BLACK_KING_HOME;
+        if ((castlingRights & (Castling.kingside(team) | Castling.queenside(team))) == 0
+                || kingSquare != home || checkers != 0) {
+            return;
+        }
+        long rooks = bits.pieces(team, ChessPiece.PieceType.ROOK);
+        if ((castlingRights & Castling.kingside(team)) != 0 && (rooks & (1L << (home + 3))) != 0
+                && (occupied & (3L << (home + 1))) == 0 && (kingDanger() & (3L << (home + 1))) == 0) {
+            moves.add(Move.encode(home, home + 2, Move.CASTLE));
+        }
+        if ((castlingRights & Castling.queenside(team)) != 0 && (rooks & (1L << (home - 4))) != 0
+                && (occupied & (7L << (home - 3))) == 0 && (kingDanger() & (3L << (home - 2))) == 0) {
+            moves.add(Move.encode(home, home - 2, Move.CASTLE));
+        }
+    }
+
+    /**
+     * Adds every legal move for the team
+     */
+    void generate(MoveList moves) {
+        generate(own, ALL, moves);
+    }
+
+    /**
+     * @return the squares the team's piece on the square can legally move to
+     */
+    private long targets(int square) {
+        int type = bits.pieceAt(square) % 6;
+        if (type == KING) {
+            return Attacks.king(square) & ~own & ~kingDanger();
+        }
+        if (checkMask == 0) {
+            return 0L;
+        }
+
+        long targets;
+        if (type == KNIGHT) {
+            targets = Attacks.knight(square);
+        } else if (type == BISHOP) {
+            targets = Attacks.bishop(square, occupied);
+        } else if (type == ROOK) {
+            targets = Attacks.rook(square, occupied);
+        } else if (type == QUEEN) {
+            targets = Attacks.queen(square, occupied);
+        } else {
+            targets = pawnTargets(square);
+        }
+
+        targets &= ~own & checkMask;
+        if ((pinned & (1L << square)) != 0) {
+            targets &= Attacks.line(kingSquare, square);
+        }
+        if (type == PAWN && enPassantSquare >= 0 && (Attacks.pawn(team, square) & (1L << enPassantSquare)) != 0
+                && enPassantIsSafe(square)) {
+            targets |= 1L << enPassantSquare;
+        }
+        return targets;
+    }
+
+    /**
+     * En passant takes two pawns off one row at once, which the pin and
+     * check masks don't account for, so it is checked by clearing both from
+     * the occupancy and looking for anything attacking the king
+     *
+     * @return True if capturing en passant from the square leaves the king safe
+     */
+    private boolean enPassantIsSafe(int square) {
+        if (kingSquare < 0) {
+            return true;
+        }
+        long captured = 1L << (enPassantSquare + (team == ChessGame.TeamColor.WHITE ? -8 : 8));
+        long after = (occupied ^ (1L << square) ^ captured) | (1L << enPassantSquare);
+        return (Attacks.attackersTo(bits, kingSquare, after, enemy) & ~captured) == 0;
+    }
+
+    private long pawnTargets(int square) {
+        long targets = Attacks.pawn(team, square) & bits.occupancy(enemy);
+        int forward = team == ChessGame.TeamColor.WHITE ? 8 : -8;
+        int one = square + forward;
+        if (one >= 0 && one < 64 && (occupied & (1L << one)) == 0) {
+            targets |= 1L << one;
+            int startRow = team == ChessGame.TeamColor.WHITE ? 2 : 7;
+            int two = one + forward;
+            if (BitBoard.row(square) == startRow && (occupied & (1L << two)) == 0) {
+                targets |= 1L << two;
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * @return the squares the king may not step onto, found with the king
+     * lifted off the board so it cannot hide behind itself from a slider
+     */
+    private long kingDanger() {
+        if (!kingDangerKnown) {
+            kingDanger = Attacks.attackedBy(bits, enemy, occupied & ~(1L << kingSquare));
+            kingDangerKnown = true;
+        }
+        return kingDanger;
+    }
+}
@@ -0,0 +1,141 @@
+package chess;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The moves a game has played, the position before them, and the position
+ * key after each one for spotting repetitions. Gson stores only the start
+ * position, as FEN, and the moves actually played; the keys are worked out
+ * again by {@link ChessGame} replaying the moves the first time it needs them.
+ */
+@JsonAdapter(MoveHistory.Adapter.class)
+final class MoveHistory {
+    private static final int CAPACITY = 64;
+
+    // the position before the first move, or null while no move has been
+    // played from the game's current position
+    BoardSnapshot start;
+    // the move that led to each position after the first, Move-encoded
+    int[] moves;
+    // position keys after each move, the current position last; only the
+    // last halfmoveClock + 1 entries can ever repeat
+    long[] keys;
+    // positions held, the start included
+    int size = 1;
+    // False until the keys are worked out, which is put off so that setting
+    // up a position or reading a game in costs nothing
+    boolean keyed;
+
+    MoveHistory() {
+        this(CAPACITY);
+    }
+
+    private MoveHistory(int capacity) {
+        this.moves = new int[capacity];
+        this.keys = new long[capacity];
+    }
+
+    MoveHistory(MoveHistory other) {
+        int capacity = Math.max(CAPACITY, other.size * 2);
+        this.start = other.start;
+        this.moves = Arrays.copyOf(other.moves, capacity);
+        this.keys = Arrays.copyOf(other.keys, capacity);
+        this.size = other.size;
+        this.keyed = other.keyed;
+    }
+
+    /**
+     * Starts again from the game's current position
+     */
+    void reset() {
+        start = null;
+        size = 1;
+        keyed = false;
+    }
+
+    /**
+     * Adds a move and the key of the position it leads to
+     */
+    void push(int move, long key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size - 1] = move;
+        keys[size++] = key;
+    }
+
+    /**
+     * Writes {@code {"start": fen, "moves": [...]}}, leaving the start out
+     * when no move has been played
+     */
+    static final class Adapter extends TypeAdapter<MoveHistory> {
+        @Override
+        public void write(JsonWriter out, MoveHistory history) throws IOException {
+            if (history == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if (history.start != null && history.size > 1) {
+                out.name("start").value(Fen.write(history.start.toGame()));
+            }
+            out.name("moves").beginArray();
+            for (int i = 0; i < history.size - 1; i++) {
+                out.value(history.moves[i]);
+            }
+            out.endArray();
+            out.endObject();
+        }
+
+        @Override
+        public MoveHistory read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return new MoveHistory();
+            }
+            String start = null;
+            int[] moves = new int[CAPACITY];
+            int count = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (name.equals("start")) {
+                    start = in.nextString();
+                } else if (name.equals("moves")) {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        if (count == moves.length) {
+                            moves = Arrays.copyOf(moves, count * 2);
+                        }
+                        moves[count++] = in.nextInt();
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+
+            MoveHistory history = new MoveHistory(Math.max(CAPACITY, (count + 1) * 2));
+            if (start != null && count > 0) {
+                try {
+                    history.start = Fen.parse(start).snapshot();
+                } catch (IllegalArgumentException e) {
+                    throw new JsonParseException("Bad start position in move history: " + start, e);
+                }
+                System.arraycopy(moves, 0, history.moves, 0, count);
+                history.size = count + 1;
+            }
+            return history;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package chess;
+
+/**
+ * Everything needed to take back a move made with
+ * {@link ChessGame#makeMove(int, MoveUndo)}.
+ * <p>
+ * Records are meant to be reused: callers keep one per ply rather than
+ * creating a new one for every move they try.
+ */
+public final class MoveUndo {
+    int move;
+    ChessPiece movedPiece;
+    ChessPiece capturedPiece;
+    ChessGame.TeamColor previousTurn;
+    int previousCastlingRights;
+    int previousEnPassantSquare;
+    int previousHalfmoveClock;
+    int previousFullmoveNumber;
+
+    /**
+     * @return the move this record can take back
+     */
+    public ChessMove getMove() {
+        return Move.toChessMove(move);
+    }
+
+    /**
+     * @return the move this record can take back, encoded with {@link Move}
+     */
+    public int getEncodedMove() {
+        return move;
+    }
+
+    /**
+     * @return the piece that was captured by the move, or null if none was
+     */
+    public ChessPiece getCapturedPiece() {
+        return capturedPiece;
+    }
+}
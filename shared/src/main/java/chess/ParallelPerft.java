@@ -0,0 +1,105 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft spread over a fork/join pool. The tree is split at the root moves,
+ * and again one ply down when there is enough depth left, so a position
+ * with only a handful of legal moves still keeps every core busy. Each
+ * subtree is counted on its own copy of the game with the ordinary
+ * single-threaded {@link Perft}, so the threads never share a board.
+ */
+public final class ParallelPerft {
+    // subtrees shallower than this are cheaper to count than to hand out
+    private static final int MIN_SPLIT_DEPTH = 4;
+    private static final int MAX_SPLIT_PLY = 2;
+
+    private ParallelPerft() {
+    }
+
+    /**
+     * Counts the leaf nodes at the given depth on the common pool
+     *
+     * @param game  the position to start from, which is left unchanged
+     * @param depth how many plies to walk
+     * @return the number of leaf nodes, the same as {@link Perft#perft}
+     */
+    public static long perft(ChessGame game, int depth) {
+        return perft(game, depth, ForkJoinPool.commonPool());
+    }
+
+    public static long perft(ChessGame game, int depth, ForkJoinPool pool) {
+        return pool.invoke(new Subtree(new ChessGame(game), depth, 0));
+    }
+
+    /**
+     * Counts the leaf nodes below each legal move of the game's position,
+     * one task per root move
+     *
+     * @return node counts keyed by root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth, ForkJoinPool pool) {
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        List<Subtree> tasks = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            tasks.add(new Subtree(after(game, moves.get(i)), depth - 1, 1));
+        }
+        return pool.invoke(new RecursiveTask<>() {
+            @Override
+            protected Map<ChessMove, Long> compute() {
+                invokeAll(tasks);
+                Map<ChessMove, Long> counts = new LinkedHashMap<>();
+                for (int i = 0; i < tasks.size(); i++) {
+                    counts.put(Move.toChessMove(moves.get(i)), tasks.get(i).join());
+                }
+                return counts;
+            }
+        });
+    }
+
+    private static ChessGame after(ChessGame game, int move) {
+        ChessGame copy = new ChessGame(game);
+        copy.makeMove(move, new MoveUndo());
+        return copy;
+    }
+
+    /**
+     * Counts one subtree, forking a task per move while the tree is still
+     * deep enough to be worth splitting
+     */
+    private static final class Subtree extends RecursiveTask<Long> {
+        private final ChessGame game;
+        private final int depth;
+        private final int ply;
+
+        Subtree(ChessGame game, int depth, int ply) {
+            this.game = game;
+            this.depth = depth;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth < MIN_SPLIT_DEPTH || ply >= MAX_SPLIT_PLY) {
+                return Perft.perft(game, depth);
+            }
+            MoveList moves = new MoveList();
+            game.generateLegalMoves(moves);
+            List<Subtree> children = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                children.add(new Subtree(after(game, moves.get(i)), depth - 1, ply + 1));
+            }
+            long nodes = 0;
+            for (Subtree child : invokeAll(children)) {
+                nodes += child.join();
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Counts the leaf nodes of the legal move tree below a position (perft).
+ * The counts for well known positions are published, so a mismatch points
+ * at a move generation bug, and the time taken gives a throughput number.
+ * <p>
+ * Usage: {@code Perft [depth [fen]] [--divide] [--threads n]}. With no FEN
+ * the reference positions are all checked against their published counts.
+ * With more than one thread the counting is done by {@link ParallelPerft}.
+ */
+public final class Perft {
+    /**
+     * A position with its published node counts, starting at depth 1
+     */
+    public record Reference(String name, String fen, long... nodes) {
+        public int maxDepth() {
+            return nodes.length;
+        }
+
+        public long nodes(int depth) {
+            return nodes[depth - 1];
+        }
+    }
+
+    public static final List<Reference> REFERENCES = List.of(
+            new Reference("start", Fen.START,
+                    20, 400, 8902, 197281, 4865609),
+            new Reference("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2039, 97862, 4085603),
+            new Reference("position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2812, 43238, 674624),
+            new Reference("position4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9467, 422333),
+            new Reference("position5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1486, 62379, 2103487),
+            new Reference("position6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890, 3894594)
+    );
+
+    private final ChessGame game;
+    private final MoveUndo[] undos;
+    private final MoveList[] moveLists;
+
+    public Perft(ChessGame game, int maxDepth) {
+        this.game = game;
+        int plies = Math.max(maxDepth, 1);
+        this.undos = new MoveUndo[plies];
+        this.moveLists = new MoveList[plies];
+        for (int i = 0; i < plies; i++) {
+            undos[i] = new MoveUndo();
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Counts the leaf nodes at the given depth below the game's position
+     *
+     * @param game  the position to start from, which is left unchanged
+     * @param depth how many plies to walk
+     * @return the number of leaf nodes
+     */
+    public static long perft(ChessGame game, int depth) {
+        return new Perft(game, depth).count(depth, 0);
+    }
+
+    /**
+     * Counts the leaf nodes below each legal move of the game's position
+     *
+     * @return node counts keyed by root move, in generation order
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        Perft perft = new Perft(game, depth);
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i), perft.undos[0]);
+            counts.put(Move.toChessMove(moves.get(i)), depth <= 1 ? 1L : perft.count(depth - 1, 1));
+            game.unmakeMove(perft.undos[0]);
+        }
+        return counts;
+    }
+
+    private long count(int depth, int ply) {
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        game.generateLegalMoves(moves);
+        if (depth <= 1) {
+            return depth == 1 ? moves.size() : 1;
+        }
+        long nodes = 0;
+        MoveUndo undo = undos[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i), undo);
+            nodes += count(depth - 1, ply + 1);
+            game.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        boolean divide = false;
+        int threads = 1;
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--divide")) {
+                divide = true;
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                rest.add(args[i]);
+            }
+        }
+        int depth = rest.isEmpty() ? 0 : Integer.parseInt(rest.get(0));
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+
+        if (rest.size() < 2) {
+            runReferences(depth, pool);
+            return;
+        }
+
+        String fen = String.join(" ", rest.subList(1, rest.size()));
+        ChessGame game = Fen.parse(fen);
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            nodes = 0;
+            Map<ChessMove, Long> counts = pool == null ? divide(game, depth) : ParallelPerft.divide(game, depth, pool);
+            for (Map.Entry<ChessMove, Long> entry : counts.entrySet()) {
+                System.out.println(Move.toString(Move.of(entry.getKey())) + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+        } else {
+            nodes = count(game, depth, pool);
+        }
+        report(depth, nodes, System.nanoTime() - start);
+    }
+
+    private static long count(ChessGame game, int depth, ForkJoinPool pool) {
+        return pool == null ? perft(game, depth) : ParallelPerft.perft(game, depth, pool);
+    }
+
+    private static void runReferences(int depthLimit, ForkJoinPool pool) {
+        boolean allPassed = true;
+        for (Reference reference : REFERENCES) {
+            int depth = depthLimit > 0 ? Math.min(depthLimit, reference.maxDepth()) : reference.maxDepth();
+            long start = System.nanoTime();
+            long nodes = count(Fen.parse(reference.fen()), depth, pool);
+            long elapsed = System.nanoTime() - start;
+            boolean passed = nodes == reference.nodes(depth);
+            allPassed &= passed;
+            System.out.print((passed ? "ok   " : "FAIL ") + reference.name() + " expected " + reference.nodes(depth) + ", ");
+            report(depth, nodes, elapsed);
+        }
+        if (!allPassed) {
+            System.exit(1);
+        }
+    }
+
+    private static void report(int depth, long nodes, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("depth %d: %d nodes in %.3f s (%.0f nodes/s)%n", depth, nodes, seconds, nodes / Math.max(seconds, 1e-9));
+    }
+}
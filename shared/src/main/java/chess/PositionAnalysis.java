@@ -0,0 +1,47 @@
+package chess;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * The basic facts about a position that corpus tools want: how many legal
+ * moves the side to move has, and whether it is in check, checkmated or
+ * stalemated.
+ *
+ * @param legalMoves how many legal moves the side to move has
+ * @param check      whether the side to move is in check
+ * @param checkmate  whether the side to move is checkmated
+ * @param stalemate  whether the side to move has no moves but is not in check
+ */
+public record PositionAnalysis(int legalMoves, boolean check, boolean checkmate, boolean stalemate) {
+
+    /**
+     * Analyses a single position
+     *
+     * @param game the position, which is left unchanged
+     */
+    public static PositionAnalysis of(ChessGame game) {
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        boolean check = game.isInCheck(game.getTeamTurn());
+        boolean noMoves = moves.size() == 0;
+        return new PositionAnalysis(moves.size(), check, check && noMoves, !check && noMoves);
+    }
+
+    /**
+     * Analyses many positions in parallel on the common pool
+     *
+     * @param positions the positions to analyse; each must be a different
+     *                  game, since a game can only be used by one thread at a time
+     * @return one result per position, in the order the positions came in
+     */
+    public static List<PositionAnalysis> analyzeAll(Stream<ChessGame> positions) {
+        return analyzeAll(positions, ForkJoinPool.commonPool());
+    }
+
+    public static List<PositionAnalysis> analyzeAll(Stream<ChessGame> positions, ForkJoinPool pool) {
+        // a parallel stream started from inside a pool runs its work on that pool
+        return pool.submit(() -> positions.parallel().map(PositionAnalysis::of).toList()).join();
+    }
+}
@@ -0,0 +1,178 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.Move;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * An opening book read straight out of a memory-mapped file. The file is a
+ * sorted array of fixed-size entries, each a position's Zobrist key, a
+ * {@link Move}-encoded move and its weight, so a lookup is a binary search
+ * over the mapping with nothing read into objects first. The mapping is
+ * read-only and only read with absolute gets, so one book can serve any
+ * number of threads, and processes that open the same file share its pages.
+ * <p>
+ * The keys are {@link ChessGame#getZobristKey()}'s, not Polyglot's, so
+ * books are built for this format by {@link OpeningBookBuilder}. Book moves
+ * are checked against the position before they are handed out, so a key
+ * collision can't produce an illegal move.
+ * <p>
+ * File layout, big-endian: the 8-byte {@link #MAGIC}, an 8-byte entry
+ * count, then the entries sorted by key and, within a key, by weight from
+ * highest to lowest. Each entry is the key (8 bytes), the move (4) and the
+ * weight (4).
+ */
+public final class OpeningBook {
+    static final long MAGIC = 0x43484553_53424B31L; // "CHESSBK1"
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 16;
+
+    private final ByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(ByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * Maps a book file into memory. The file is closed again straight away;
+     * the mapping stays valid until the book is garbage collected.
+     *
+     * @param path a file written by {@link OpeningBookBuilder}
+     * @throws IOException if the file can't be read or isn't a book
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            long count = map.getLong(8);
+            if (map.getLong(0) != MAGIC || count != (length - HEADER_BYTES) / ENTRY_BYTES
+                    || (length - HEADER_BYTES) % ENTRY_BYTES != 0) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            return new OpeningBook(map, (int) count);
+        }
+    }
+
+    /**
+     * @return how many moves the book holds, over all positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the legal book moves for the position, heaviest first, or an
+     * empty list if the position isn't in the book
+     */
+    public List<BookMove> moves(ChessGame game) {
+        long key = game.getZobristKey();
+        List<BookMove> moves = new ArrayList<>(4);
+        for (int i = firstEntry(key); i < size && key(i) == key; i++) {
+            int move = game.legalMove(move(i));
+            if (move != Move.NONE) {
+                moves.add(new BookMove(move, weight(i)));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * @return the heaviest legal book move for the position, or Move.NONE
+     */
+    public int bestMove(ChessGame game) {
+        long key = game.getZobristKey();
+        for (int i = firstEntry(key); i < size && key(i) == key; i++) {
+            int move = game.legalMove(move(i));
+            if (move != Move.NONE) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Picks a book move at random, each with odds in proportion to its
+     * weight, so a bot doesn't play the same opening every game
+     *
+     * @return a legal book move, or Move.NONE if the position isn't in the book
+     */
+    public int pickMove(ChessGame game, RandomGenerator random) {
+        long key = game.getZobristKey();
+        int first = firstEntry(key);
+        long total = 0;
+        int end = first;
+        for (; end < size && key(end) == key; end++) {
+            if (game.legalMove(move(end)) != Move.NONE) {
+                total += weight(end);
+            }
+        }
+        if (total == 0) {
+            return bestMove(game);
+        }
+        long pick = random.nextLong(total);
+        for (int i = first; i < end; i++) {
+            int move = game.legalMove(move(i));
+            if (move == Move.NONE) {
+                continue;
+            }
+            pick -= weight(i);
+            if (pick < 0) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * @return the index of the first entry whose key is at least the given
+     * one, comparing keys as signed numbers like the builder sorts them
+     */
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long key(int index) {
+        return entries.getLong(HEADER_BYTES + index * ENTRY_BYTES);
+    }
+
+    private int move(int index) {
+        return entries.getInt(HEADER_BYTES + index * ENTRY_BYTES + 8);
+    }
+
+    private int weight(int index) {
+        return entries.getInt(HEADER_BYTES + index * ENTRY_BYTES + 12);
+    }
+
+    /**
+     * A move the book gives for a position
+     *
+     * @param move   the {@link Move}-encoded move, with its flags set for the position
+     * @param weight how strongly the book recommends it, relative to the
+     *               position's other moves
+     */
+    public record BookMove(int move, int weight) {
+    }
+}
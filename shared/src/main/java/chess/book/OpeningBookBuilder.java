@@ -0,0 +1,208 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveUndo;
+import chess.pgn.PgnException;
+import chess.pgn.PgnReader;
+import chess.pgn.PgnWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles games into an {@link OpeningBook} file. Every move played in the
+ * first plies of a game adds to that move's weight in the position it was
+ * played from: two for the side that went on to win, one for a draw or a
+ * game with no result, nothing for the side that lost. Moves that never
+ * earned any weight are left out of the book.
+ * <p>
+ * Usage: {@code OpeningBookBuilder [--plies n] book.bin games.pgn...}
+ */
+public final class OpeningBookBuilder {
+    public static final int DEFAULT_PLIES = 24;
+
+    private final int maxPlies;
+    // position key to move to weight
+    private final Map<Long, Map<Integer, Integer>> weights = new HashMap<>();
+    private final MoveUndo undo = new MoveUndo();
+    private long games;
+    private long skipped;
+
+    public OpeningBookBuilder() {
+        this(DEFAULT_PLIES);
+    }
+
+    /**
+     * @param maxPlies how many moves from the start of each game to take
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        if (maxPlies < 1) {
+            throw new IllegalArgumentException("A book needs at least one ply per game");
+        }
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Adds the opening of a game, replayed from its move history
+     *
+     * @param game   the game, which is not changed
+     * @param result the PGN result, "1-0", "0-1" or "1/2-1/2"; anything
+     *               else, or null, counts as a game with no result
+     */
+    public void addGame(ChessGame game, String result) {
+        ChessGame replay = Fen.parse(game.getStartFen());
+        int[] history = game.getMoveHistory();
+        for (int i = 0; i < history.length && i < maxPlies; i++) {
+            int move = replay.legalMove(history[i]);
+            if (move == Move.NONE) {
+                break;
+            }
+            int weight = weight(result, replay.getTeamTurn());
+            if (weight > 0) {
+                weights.computeIfAbsent(replay.getZobristKey(), key -> new HashMap<>(4))
+                        .merge(identity(move), weight, OpeningBookBuilder::saturatedAdd);
+            }
+            replay.makeMove(move, undo);
+        }
+        games++;
+    }
+
+    /**
+     * Adds the opening of a stored game, taking its result from how its
+     * final position stands
+     */
+    public void addGame(ChessGame game) {
+        addGame(game, PgnWriter.result(game));
+    }
+
+    /**
+     * Adds every game the reader has left. A game with a malformed header or
+     * move is skipped whole, and counted in {@link #gamesSkipped()}.
+     *
+     * @return how many games were added
+     * @throws IOException if the file itself can't be read
+     */
+    public long addPgn(PgnReader reader) throws IOException {
+        long added = 0;
+        while (true) {
+            try {
+                if (!reader.nextGame()) {
+                    return added;
+                }
+                while (reader.nextMove() != Move.NONE) {
+                    // the result is only known once the movetext is read
+                }
+            } catch (PgnException e) {
+                // the reader skips the rest of the game on the next nextGame
+                skipped++;
+                continue;
+            }
+            addGame(reader.game(), reader.result());
+            added++;
+        }
+    }
+
+    /**
+     * @return how many games have been added
+     */
+    public long gamesAdded() {
+        return games;
+    }
+
+    /**
+     * @return how many games {@link #addPgn} skipped as malformed
+     */
+    public long gamesSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Writes the book, replacing anything already in the file
+     *
+     * @return how many moves the book holds
+     */
+    public int write(Path path) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, Integer>> position : weights.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                entries.add(new long[]{position.getKey(), move.getKey(), move.getValue()});
+            }
+        }
+        entries.sort(Comparator.<long[]>comparingLong(entry -> entry[0])
+                .thenComparingLong(entry -> -entry[2])
+                .thenComparingLong(entry -> entry[1]));
+        if ((long) entries.size() * OpeningBook.ENTRY_BYTES > Integer.MAX_VALUE - OpeningBook.HEADER_BYTES) {
+            throw new IOException("Too many moves for one book file: " + entries.size());
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeLong(OpeningBook.MAGIC);
+            out.writeLong(entries.size());
+            for (long[] entry : entries) {
+                out.writeLong(entry[0]);
+                out.writeInt((int) entry[1]);
+                out.writeInt((int) entry[2]);
+            }
+        }
+        return entries.size();
+    }
+
+    private static int weight(String result, ChessGame.TeamColor mover) {
+        if ("1-0".equals(result)) {
+            return mover == ChessGame.TeamColor.WHITE ? 2 : 0;
+        }
+        if ("0-1".equals(result)) {
+            return mover == ChessGame.TeamColor.BLACK ? 2 : 0;
+        }
+        return 1;
+    }
+
+    /**
+     * @return the move without its flags, which the book doesn't need since
+     * they are worked out again when the move is probed
+     */
+    private static int identity(int move) {
+        return Move.encode(Move.from(move), Move.to(move), Move.promotion(move), 0);
+    }
+
+    private static int saturatedAdd(int first, int second) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) first + second);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int plies = DEFAULT_PLIES;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--plies")) {
+                plies = Integer.parseInt(args[++i]);
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if (files.size() < 2) {
+            System.err.println("Usage: OpeningBookBuilder [--plies n] book.bin games.pgn...");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        for (String file : files.subList(1, files.size())) {
+            try (PgnReader reader = PgnReader.open(Path.of(file))) {
+                builder.addPgn(reader);
+            }
+        }
+        int moves = builder.write(Path.of(files.get(0)));
+        System.out.printf("%d games, %d skipped, %d book moves, %d ms%n", builder.gamesAdded(),
+                builder.gamesSkipped(), moves, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,128 @@
+package chess.engine;
+
+import chess.Attacks;
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PieceSquareTables;
+
+/**
+ * Static evaluation of a position in centipawns, from the point of view of
+ * the side to move: positive means the side to move is ahead.
+ * <p>
+ * Material and piece placement come from the totals the board keeps up to
+ * date as pieces move, so they cost nothing here. Mobility and king safety
+ * depend on attacks and are worked out at each call. Every term has a
+ * middlegame and an endgame weight, blended by how much material is left.
+ */
+public final class Evaluator {
+    // indexed by PieceType ordinal: king, queen, bishop, knight, rook, pawn
+    static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+
+    // bonus per square a piece can move to that no enemy pawn guards
+    private static final int[] MOBILITY_MIDDLEGAME = {0, 1, 5, 4, 2, 0};
+    private static final int[] MOBILITY_ENDGAME = {0, 2, 3, 4, 4, 0};
+
+    // how much a piece attacking the squares around the enemy king counts for
+    private static final int[] KING_ATTACK_WEIGHTS = {0, 5, 2, 2, 3, 0};
+    // penalty by total attack weight; grows quickly once several pieces join in
+    private static final int[] KING_DANGER = {
+            0, 0, 1, 2, 4, 7, 11, 16, 22, 29, 37, 46, 56, 67, 79, 92,
+            106, 121, 137, 154, 172, 191, 211, 232, 254, 277, 300
+    };
+
+    private static final ChessGame.TeamColor[] TEAMS = ChessGame.TeamColor.values();
+
+    private Evaluator() {
+    }
+
+    public static int evaluate(ChessGame game) {
+        BitBoard bits = game.getBoard().getBitBoard();
+        int middlegame = bits.middlegameScore();
+        int endgame = bits.endgameScore();
+        for (ChessGame.TeamColor team : TEAMS) {
+            int sign = team == ChessGame.TeamColor.WHITE ? 1 : -1;
+            int activity = activity(bits, team);
+            middlegame += sign * middlegameOf(activity);
+            endgame += sign * endgameOf(activity);
+        }
+        int phase = Math.min(bits.phase(), PieceSquareTables.PHASE_TOTAL);
+        int score = (middlegame * phase + endgame * (PieceSquareTables.PHASE_TOTAL - phase)) / PieceSquareTables.PHASE_TOTAL;
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * Mobility of the team's pieces plus the pressure they put on the
+     * enemy king's zone; the king pressure only counts in the middlegame
+     * value, so it tapers off as material comes off the board
+     *
+     * @return the middlegame and endgame values packed by {@link #pack}
+     */
+    private static int activity(BitBoard bits, ChessGame.TeamColor team) {
+        ChessGame.TeamColor enemy = team == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long occupied = bits.occupied();
+        long available = ~bits.occupancy(team) & ~pawnAttacks(bits, enemy);
+        int enemyKing = bits.kingSquare(enemy);
+        long kingZone = enemyKing < 0 ? 0 : Attacks.king(enemyKing) | (1L << enemyKing);
+
+        int middlegame = 0;
+        int endgame = 0;
+        int kingAttack = 0;
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            int index = type.ordinal();
+            if (MOBILITY_MIDDLEGAME[index] == 0 && MOBILITY_ENDGAME[index] == 0) {
+                continue;
+            }
+            long pieces = bits.pieces(team, type);
+            while (pieces != 0) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long attacks = attacks(type, square, occupied);
+                int moves = Long.bitCount(attacks & available);
+                middlegame += MOBILITY_MIDDLEGAME[index] * moves;
+                endgame += MOBILITY_ENDGAME[index] * moves;
+                if ((attacks & kingZone) != 0) {
+                    kingAttack += KING_ATTACK_WEIGHTS[index];
+                }
+            }
+        }
+        // an attack on the king only counts while there is material left to mate with
+        middlegame += KING_DANGER[Math.min(kingAttack, KING_DANGER.length - 1)];
+        return pack(middlegame, endgame);
+    }
+
+    /**
+     * Packs a middlegame and endgame value into one int, the endgame value
+     * in the low 16 bits, so the pair can be returned without allocating
+     */
+    static int pack(int middlegame, int endgame) {
+        return (middlegame << 16) + endgame;
+    }
+
+    static int middlegameOf(int packed) {
+        // undo the borrow a negative endgame value took from the high half
+        return (packed + 0x8000) >> 16;
+    }
+
+    static int endgameOf(int packed) {
+        return (short) packed;
+    }
+
+    private static long attacks(ChessPiece.PieceType type, int square, long occupied) {
+        return switch (type) {
+            case QUEEN -> Attacks.queen(square, occupied);
+            case BISHOP -> Attacks.bishop(square, occupied);
+            case KNIGHT -> Attacks.knight(square);
+            case ROOK -> Attacks.rook(square, occupied);
+            default -> 0L;
+        };
+    }
+
+    private static long pawnAttacks(BitBoard bits, ChessGame.TeamColor team) {
+        long pawns = bits.pieces(team, ChessPiece.PieceType.PAWN);
+        if (team == ChessGame.TeamColor.WHITE) {
+            return ((pawns << 7) & ~Attacks.FILE_H) | ((pawns << 9) & ~Attacks.FILE_A);
+        }
+        return ((pawns >>> 9) & ~Attacks.FILE_H) | ((pawns >>> 7) & ~Attacks.FILE_A);
+    }
+}
@@ -0,0 +1,97 @@
+package chess.engine;
+
+import chess.BitBoard;
+import chess.ChessPiece;
+import chess.Move;
+
+import java.util.Arrays;
+
+/**
+ * What a search has learned about which moves to try first, kept per
+ * search (and so per thread) because it changes at every node.
+ * <p>
+ * Captures are ranked by most valuable victim, least valuable attacker
+ * (MVV-LVA). Quiet moves that caused a beta cutoff are remembered as the two
+ * killer moves of their ply, since a sibling position probably has the same
+ * refutation, and they earn a history bonus for their piece and destination
+ * while the quiet moves tried before them lose some. History scores are
+ * pulled back toward zero as they grow, so they keep track of recent
+ * success rather than piling up.
+ */
+final class MoveOrdering {
+    private static final int HISTORY_MAX = 16_384;
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+
+    private final int[][] killers = new int[Search.MAX_PLY][2];
+    private final int[][] history = new int[BitBoard.PIECE_KINDS][64];
+
+    /**
+     * Forgets the killers, which belong to the last position's plies, and
+     * halves the history so it still helps but gives way to new results
+     */
+    void newSearch() {
+        for (int[] slots : killers) {
+            Arrays.fill(slots, Move.NONE);
+        }
+        for (int[] scores : history) {
+            for (int square = 0; square < 64; square++) {
+                scores[square] /= 2;
+            }
+        }
+    }
+
+    int killer(int ply, int slot) {
+        return killers[ply][slot];
+    }
+
+    /**
+     * @return the move's history score, between -HISTORY_MAX and HISTORY_MAX
+     */
+    int history(BitBoard bits, int move) {
+        return history[bits.pieceAt(Move.from(move))][Move.to(move)];
+    }
+
+    /**
+     * @return a capture or promotion's ordering score; higher is tried first
+     */
+    static int captureScore(BitBoard bits, int move) {
+        int score = 0;
+        if (Move.isCapture(move)) {
+            int victim = Move.isEnPassant(move) ? PAWN : bits.pieceAt(Move.to(move)) % 6;
+            int attacker = bits.pieceAt(Move.from(move)) % 6;
+            score += Evaluator.PIECE_VALUES[victim] * 10 - Evaluator.PIECE_VALUES[attacker] / 10;
+        }
+        if (Move.isPromotion(move)) {
+            score += Evaluator.PIECE_VALUES[Move.promotion(move).ordinal()];
+        }
+        return score;
+    }
+
+    /**
+     * Records a quiet move that caused a beta cutoff
+     *
+     * @param bits   the position the move was played from
+     * @param move   the move that caused the cutoff
+     * @param ply    how far the position is from the root
+     * @param depth  the depth the position was searched to
+     * @param tried  the quiet moves searched before it without a cutoff
+     * @param count  how many of those there are
+     */
+    void cutoff(BitBoard bits, int move, int ply, int depth, int[] tried, int count) {
+        if (!Move.sameMove(killers[ply][0], move)) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int bonus = Math.min(depth * depth, 1200);
+        addHistory(bits, move, bonus);
+        for (int i = 0; i < count; i++) {
+            addHistory(bits, tried[i], -bonus);
+        }
+    }
+
+    private void addHistory(BitBoard bits, int move, int bonus) {
+        int[] scores = history[bits.pieceAt(Move.from(move))];
+        int to = Move.to(move);
+        scores[to] += bonus - scores[to] * Math.abs(bonus) / HISTORY_MAX;
+    }
+}
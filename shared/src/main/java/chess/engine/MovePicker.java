@@ -0,0 +1,220 @@
+package chess.engine;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.Move;
+import chess.MoveList;
+
+/**
+ * Hands a search the moves of one position best first, generating them in
+ * stages so a cutoff early on saves the work of generating the rest: the
+ * remembered best moves (previous iteration, transposition table), then
+ * captures that don't lose material by {@link StaticExchange}, then the
+ * killer moves, then the remaining quiet moves by history score, and last
+ * the losing captures. In check every move is generated at once, since
+ * there are few of them anyway.
+ * <p>
+ * Every move handed out is legal. One picker serves one ply, and is reset
+ * for each position with {@link #init}.
+ */
+final class MovePicker {
+    private static final int BEST_MOVES = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int GOOD_CAPTURES = 2;
+    private static final int KILLERS = 3;
+    private static final int GENERATE_QUIETS = 4;
+    private static final int QUIETS = 5;
+    private static final int BAD_CAPTURES = 6;
+    private static final int GENERATE_EVASIONS = 7;
+    private static final int EVASIONS = 8;
+    private static final int DONE = 9;
+
+    private static final int MAX_MOVES = 256;
+    // evasions that capture are sorted ahead of any history score
+    private static final int CAPTURE_BONUS = 1 << 20;
+
+    private final MoveList moves = new MoveList(MAX_MOVES);
+    private final int[] scores = new int[MAX_MOVES];
+    private final int[] badCaptures = new int[MAX_MOVES];
+    // the remembered moves and killers already handed out, not to be repeated
+    private final int[] played = new int[4];
+    private final int[] exchange = new int[StaticExchange.MAX_CAPTURES];
+
+    private ChessGame game;
+    private BitBoard bits;
+    private MoveOrdering ordering;
+    private int ply;
+    private int stage;
+    private boolean inCheck;
+    private boolean capturesOnly;
+    private int next;
+    private int badCount;
+    private int badNext;
+    private int playedCount;
+    private final int[] bestMoves = new int[2];
+    private int bestMoveIndex;
+    private int killerIndex;
+
+    /**
+     * Starts on a new position
+     *
+     * @param pvMove       the previous iteration's move here, or Move.NONE
+     * @param tableMove    the transposition table's move here, or Move.NONE
+     * @param inCheck      whether the side to move is in check
+     * @param capturesOnly for quiescence search: only captures and promotions
+     *                     that don't lose material, unless in check
+     */
+    void init(ChessGame game, MoveOrdering ordering, int ply, int pvMove, int tableMove,
+              boolean inCheck, boolean capturesOnly) {
+        this.game = game;
+        this.bits = game.getBoard().getBitBoard();
+        this.ordering = ordering;
+        this.ply = ply;
+        this.capturesOnly = capturesOnly && !inCheck;
+        bestMoves[0] = pvMove;
+        bestMoves[1] = Move.sameMove(tableMove, pvMove) ? Move.NONE : tableMove;
+        bestMoveIndex = 0;
+        killerIndex = 0;
+        playedCount = 0;
+        badCount = 0;
+        badNext = 0;
+        moves.clear();
+        next = 0;
+        this.inCheck = inCheck;
+        // quiescence search has no remembered moves to try first
+        stage = this.capturesOnly ? GENERATE_CAPTURES : BEST_MOVES;
+    }
+
+    /**
+     * @return the next move to search, or Move.NONE when there are no more
+     */
+    int next() {
+        while (true) {
+            switch (stage) {
+                case BEST_MOVES -> {
+                    while (bestMoveIndex < bestMoves.length) {
+                        int move = game.legalMove(bestMoves[bestMoveIndex++]);
+                        if (move != Move.NONE) {
+                            played[playedCount++] = move;
+                            return move;
+                        }
+                    }
+                    stage = inCheck ? GENERATE_EVASIONS : GENERATE_CAPTURES;
+                }
+                case GENERATE_CAPTURES -> {
+                    game.generateNoisyMoves(moves);
+                    for (int i = 0; i < moves.size(); i++) {
+                        scores[i] = MoveOrdering.captureScore(bits, moves.get(i));
+                    }
+                    stage = GOOD_CAPTURES;
+                }
+                case GOOD_CAPTURES -> {
+                    while (next < moves.size()) {
+                        int move = pickBest();
+                        if (wasPlayed(move)) {
+                            continue;
+                        }
+                        if (StaticExchange.evaluate(bits, move, exchange) < 0) {
+                            badCaptures[badCount++] = move;
+                            continue;
+                        }
+                        return move;
+                    }
+                    stage = capturesOnly ? DONE : KILLERS;
+                }
+                case KILLERS -> {
+                    while (killerIndex < 2) {
+                        int killer = ordering.killer(ply, killerIndex++);
+                        if (killer == Move.NONE || wasPlayed(killer)) {
+                            continue;
+                        }
+                        int move = game.legalMove(killer);
+                        // a killer that would capture here was already tried with the captures
+                        if (move != Move.NONE && !Move.isCapture(move) && !Move.isPromotion(move)) {
+                            played[playedCount++] = move;
+                            return move;
+                        }
+                    }
+                    stage = GENERATE_QUIETS;
+                }
+                case GENERATE_QUIETS -> {
+                    moves.clear();
+                    next = 0;
+                    game.generateQuietMoves(moves);
+                    for (int i = 0; i < moves.size(); i++) {
+                        scores[i] = ordering.history(bits, moves.get(i));
+                    }
+                    stage = QUIETS;
+                }
+                case QUIETS -> {
+                    while (next < moves.size()) {
+                        int move = pickBest();
+                        if (!wasPlayed(move)) {
+                            return move;
+                        }
+                    }
+                    stage = BAD_CAPTURES;
+                }
+                case BAD_CAPTURES -> {
+                    if (badNext < badCount) {
+                        return badCaptures[badNext++];
+                    }
+                    stage = DONE;
+                }
+                case GENERATE_EVASIONS -> {
+                    game.generateLegalMoves(moves);
+                    for (int i = 0; i < moves.size(); i++) {
+                        int move = moves.get(i);
+                        scores[i] = Move.isCapture(move) || Move.isPromotion(move)
+                                ? CAPTURE_BONUS + MoveOrdering.captureScore(bits, move)
+                                : ordering.history(bits, move);
+                    }
+                    stage = EVASIONS;
+                }
+                case EVASIONS -> {
+                    while (next < moves.size()) {
+                        int move = pickBest();
+                        if (!wasPlayed(move)) {
+                            return move;
+                        }
+                    }
+                    stage = DONE;
+                }
+                default -> {
+                    return Move.NONE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the best-scored of the remaining moves into place, so only as
+     * much of the list is sorted as the search actually looks at
+     *
+     * @return the move taken
+     */
+    private int pickBest() {
+        int best = next;
+        for (int i = next + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != next) {
+            moves.swap(next, best);
+            int score = scores[next];
+            scores[next] = scores[best];
+            scores[best] = score;
+        }
+        return moves.get(next++);
+    }
+
+    private boolean wasPlayed(int move) {
+        for (int i = 0; i < playedCount; i++) {
+            if (Move.sameMove(played[i], move)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
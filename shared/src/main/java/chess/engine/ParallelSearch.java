@@ -0,0 +1,132 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.tablebase.Tablebase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches one position on several threads at once ("Lazy SMP"). Every
+ * thread runs its own iterative deepening over the same root with its own
+ * move lists and ordering state, and they cooperate only through a shared
+ * transposition table: whatever one thread learns, the others find there
+ * instead of searching again. Half of the helpers start one ply deeper so
+ * the threads spread over different parts of the tree.
+ * <p>
+ * The calling thread runs the main search. When it finishes the helpers
+ * are stopped, and the answer comes from whichever thread finished the
+ * deepest iteration. Close the search to stop its helper threads.
+ */
+public final class ParallelSearch implements AutoCloseable {
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService helpers;
+
+    /**
+     * @param threads how many threads to search with, the caller's included
+     * @param table   the transposition table the threads share
+     */
+    public ParallelSearch(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A search needs at least one thread");
+        }
+        this.table = table;
+        this.searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(table);
+        }
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int threads() {
+        return searches.length;
+    }
+
+    /**
+     * @param tablebase endgame tables for every thread to score positions
+     *                  with, or null to search every position
+     */
+    public void useTablebase(Tablebase tablebase) {
+        for (Search search : searches) {
+            search.useTablebase(tablebase);
+        }
+    }
+
+    /**
+     * Stops the running search as soon as each thread can
+     */
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    /**
+     * Searches for the best move for the side to move. A node limit is
+     * shared between the threads; depth and time limits apply to each.
+     *
+     * @param position the game to search, which is not changed
+     * @param limits   when to stop
+     * @return the result of the thread that searched deepest, with the
+     * nodes of every thread counted
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        long start = System.nanoTime();
+        table.newSearch();
+        for (Search search : searches) {
+            search.resetStop();
+        }
+        SearchLimits perThread = limits.nodes() == Long.MAX_VALUE ? limits
+                : new SearchLimits(limits.depth(), Math.max(1, limits.nodes() / searches.length), limits.millis());
+
+        List<Future<SearchResult>> running = new ArrayList<>(searches.length - 1);
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            int firstDepth = i % 2 == 1 ? 2 : 1;
+            running.add(helpers.submit(() -> helper.search(position, perThread, firstDepth)));
+        }
+
+        SearchResult best = searches[0].search(position, perThread, 1);
+        long nodes = best.nodes();
+        for (int i = 1; i < searches.length; i++) {
+            searches[i].stop();
+        }
+        for (Future<SearchResult> future : running) {
+            SearchResult result = waitFor(future);
+            nodes += result.nodes();
+            if (result.depth() > best.depth()) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes,
+                System.nanoTime() - start, best.principalVariation());
+    }
+
+    private static SearchResult waitFor(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a helper search", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Helper search failed", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+}
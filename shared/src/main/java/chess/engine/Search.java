@@ -0,0 +1,380 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import chess.MoveList;
+import chess.MoveUndo;
+import chess.tablebase.Tablebase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chooses a move by iterative deepening: a principal variation search
+ * (alpha-beta that searches the first move with a full window and the rest
+ * with a null window) to depth 1, then 2, and so on until a limit is
+ * reached, each iteration trying the previous one's best line first.
+ * Leaf positions are settled by a quiescence search over captures so the
+ * evaluation is never taken in the middle of an exchange. Moves come from a
+ * {@link MovePicker}, best first by {@link MoveOrdering}'s killers and
+ * history, which is what makes alpha-beta cut off early.
+ * <p>
+ * Results are kept in a {@link TranspositionTable}, so positions reached
+ * again by a different move order, or in the next iteration, are not
+ * searched from scratch.
+ * <p>
+ * A Search works on its own copy of the game and keeps its buffers between
+ * calls, so one instance should be used by one thread at a time; use a
+ * Search per thread to serve many games at once, giving them all the same
+ * table to share one memory budget. {@link #stop()} may be called from any
+ * thread.
+ * <p>
+ * With a {@link Tablebase}, positions it covers are scored from it instead
+ * of being searched.
+ */
+public final class Search {
+    public static final int MATE = 32000;
+    private static final int INFINITY = MATE + 1;
+    static final int MAX_PLY = 128;
+    // the smallest mate score: a tablebase mate found at the deepest ply
+    static final int MATE_BOUND = MATE - MAX_PLY - Tablebase.MAX_DISTANCE;
+    private static final int DEFAULT_TABLE_MEGABYTES = 16;
+    private static final int MAX_MOVES = 256;
+    // how often, in nodes, to look at the clock and the stop flag
+    private static final int CHECK_INTERVAL = 1023;
+
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    private final MoveOrdering ordering = new MoveOrdering();
+    // the quiet moves searched at each ply, which lose history if another one cuts off
+    private final int[][] quietsTried = new int[MAX_PLY][MAX_MOVES];
+    private final MoveList rootMoves = new MoveList();
+    private final MoveUndo[] undos = new MoveUndo[MAX_PLY];
+    // triangular table: pv[ply] holds the best line found from ply onward
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    private final int[] previousPv = new int[MAX_PLY];
+    private int previousPvLength;
+    // True while the moves played so far match the previous iteration's line
+    private final boolean[] onPv = new boolean[MAX_PLY + 1];
+
+    private final TranspositionTable table;
+    private Tablebase tablebase;
+    private ChessGame game;
+    private long nodes;
+    private long nodeLimit;
+    // when the search started, by System.nanoTime, and how long it may run
+    private long startNanos;
+    private long budgetNanos;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+
+    /**
+     * Creates a search with a transposition table of its own
+     */
+    public Search() {
+        this(new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * @param table the transposition table to use, which may be shared with
+     *              searches on other threads
+     */
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            pickers[ply] = new MovePicker();
+            undos[ply] = new MoveUndo();
+        }
+    }
+
+    /**
+     * @return True if the score means one side can force mate
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE_BOUND;
+    }
+
+    /**
+     * Asks the running search to stop as soon as it can. It still answers
+     * with the deepest iteration it finished.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * @param tablebase endgame tables to score positions with, or null to
+     *                  search every position
+     */
+    public void useTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Searches for the best move for the side to move. The game passed in
+     * is copied, not changed.
+     *
+     * @param position the game to search
+     * @param limits   when to stop
+     * @return the best move found and how it was found
+     */
+    public SearchResult search(ChessGame position, SearchLimits limits) {
+        resetStop();
+        table.newSearch();
+        return search(position, limits, 1);
+    }
+
+    /**
+     * Clears an earlier stop request, ready for the next search
+     */
+    void resetStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Runs the iterative deepening from the given depth without clearing a
+     * stop request or starting a new table generation, so helper threads can
+     * join a search already under way
+     */
+    SearchResult search(ChessGame position, SearchLimits limits, int firstDepth) {
+        long start = System.nanoTime();
+        game = new ChessGame(position);
+        nodes = 0;
+        nodeLimit = limits.nodes();
+        startNanos = start;
+        budgetNanos = limits.millis() >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE : limits.millis() * 1_000_000;
+        aborted = false;
+        previousPvLength = 0;
+        ordering.newSearch();
+
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = Math.min(firstDepth, limits.depth()); depth <= limits.depth(); depth++) {
+            onPv[0] = true;
+            int score = search(depth, 0, -INFINITY, INFINITY);
+            if (aborted) {
+                break;
+            }
+            bestScore = score;
+            completedDepth = depth;
+            previousPvLength = pvLength[0];
+            System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+            // a forced mate found within this depth won't get any shorter
+            if (previousPvLength == 0 || (isMateScore(score) && MATE - Math.abs(score) <= depth)) {
+                break;
+            }
+        }
+
+        if (completedDepth == 0) {
+            return fallback(start);
+        }
+        List<ChessMove> line = new ArrayList<>(previousPvLength);
+        for (int i = 0; i < previousPvLength; i++) {
+            line.add(Move.toChessMove(previousPv[i]));
+        }
+        return new SearchResult(line.isEmpty() ? null : line.get(0), bestScore, completedDepth, nodes,
+                System.nanoTime() - start, line);
+    }
+
+    /**
+     * @return the first legal move, for when the limits ran out before even
+     * a one-ply search finished
+     */
+    private SearchResult fallback(long start) {
+        MoveList moves = rootMoves;
+        moves.clear();
+        game.generateLegalMoves(moves);
+        if (moves.isEmpty()) {
+            return new SearchResult(null, 0, 0, nodes, System.nanoTime() - start, List.of());
+        }
+        ChessMove move = Move.toChessMove(moves.get(0));
+        return new SearchResult(move, 0, 0, nodes, System.nanoTime() - start, List.of(move));
+    }
+
+    private int search(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (ply > 0 && (game.isFiftyMoveDraw() || game.getRepetitionCount() > 1)) {
+            return 0;
+        }
+        if (ply > 0 && tablebase != null
+                && Long.bitCount(game.getBoard().getBitBoard().occupied()) <= tablebase.maxPieces()) {
+            int result = tablebase.probe(game);
+            if (result != Tablebase.NOT_FOUND) {
+                nodes++;
+                return tablebaseScore(result, ply);
+            }
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (shouldStop()) {
+            return 0;
+        }
+        nodes++;
+        if (ply >= MAX_PLY - 1) {
+            return Evaluator.evaluate(game);
+        }
+
+        long key = game.getZobristKey();
+        long entry = table.probe(key);
+        int tableMove = Move.NONE;
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            // the principal variation is searched in full so it stays intact
+            if (ply > 0 && beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry, ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        int pvMove = onPv[ply] && ply < previousPvLength ? previousPv[ply] : Move.NONE;
+        MovePicker picker = pickers[ply];
+        picker.init(game, ordering, ply, pvMove, tableMove, inCheck, false);
+
+        int originalAlpha = alpha;
+        int bestMove = Move.NONE;
+        int best = -INFINITY;
+        int moveCount = 0;
+        int quietCount = 0;
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            play(move, ply);
+            int score;
+            if (moveCount == 0) {
+                score = -search(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -search(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -search(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            game.unmakeMove(undos[ply]);
+            if (aborted) {
+                return 0;
+            }
+            moveCount++;
+            boolean quiet = !Move.isCapture(move) && !Move.isPromotion(move);
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (quiet) {
+                            ordering.cutoff(game.getBoard().getBitBoard(), move, ply, depth, quietsTried[ply], quietCount);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (quiet) {
+                quietsTried[ply][quietCount++] = move;
+            }
+        }
+        if (moveCount == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bound == TranspositionTable.UPPER ? Move.NONE : bestMove, best, depth, bound, ply);
+        return best;
+    }
+
+    /**
+     * Searches captures and promotions only, letting the side to move stand
+     * pat on the static evaluation if none of them helps. Captures that lose
+     * material by static exchange are left out. In check every move is
+     * searched, since standing pat is not an option.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (shouldStop()) {
+            return 0;
+        }
+        nodes++;
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        int best = -INFINITY;
+        if (!inCheck || ply >= MAX_PLY - 1) {
+            best = Evaluator.evaluate(game);
+            if (best >= beta || ply >= MAX_PLY - 1) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        MovePicker picker = pickers[ply];
+        picker.init(game, ordering, ply, Move.NONE, Move.NONE, inCheck, true);
+        int moveCount = 0;
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            moveCount++;
+            play(move, ply);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.unmakeMove(undos[ply]);
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (inCheck && moveCount == 0) {
+            return -MATE + ply;
+        }
+        return best;
+    }
+
+    /**
+     * @return a tablebase result as a score, mates counted from the root
+     */
+    static int tablebaseScore(int result, int ply) {
+        if (Tablebase.isWin(result)) {
+            return MATE - ply - Tablebase.distance(result);
+        }
+        if (Tablebase.isLoss(result)) {
+            return -MATE + ply + Tablebase.distance(result);
+        }
+        return 0;
+    }
+
+    private void play(int move, int ply) {
+        onPv[ply + 1] = onPv[ply] && ply < previousPvLength && Move.sameMove(move, previousPv[ply]);
+        game.makeMove(move, undos[ply]);
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, length - (ply + 1));
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private boolean shouldStop() {
+        if (aborted) {
+            return true;
+        }
+        if (nodes >= nodeLimit) {
+            aborted = true;
+        } else if ((nodes & CHECK_INTERVAL) == 0
+                && (stopRequested || System.nanoTime() - startNanos >= budgetNanos || Thread.currentThread().isInterrupted())) {
+            aborted = true;
+        }
+        return aborted;
+    }
+}
@@ -0,0 +1,33 @@
+package chess.engine;
+
+/**
+ * How far a search may go before it has to answer. The search stops at
+ * whichever limit it reaches first and answers with the deepest iteration
+ * it finished.
+ *
+ * @param depth  the deepest iteration to run, in plies
+ * @param nodes  the most positions to visit
+ * @param millis the most wall-clock time to spend, in milliseconds
+ */
+public record SearchLimits(int depth, long nodes, long millis) {
+    public static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (depth < 1 || nodes < 1 || millis < 1) {
+            throw new IllegalArgumentException("Search limits must be positive");
+        }
+        depth = Math.min(depth, MAX_DEPTH);
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, nodes, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, millis);
+    }
+}
@@ -0,0 +1,27 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * What a search found
+ *
+ * @param bestMove            the move to play, or null if the side to move has none
+ * @param score               the position's value in centipawns for the side to move;
+ *                            see {@link Search#isMateScore}
+ * @param depth               the deepest iteration that finished
+ * @param nodes               positions visited, by every thread that took part
+ * @param nanos               how long the search took
+ * @param principalVariation  the line both sides are expected to play, starting with bestMove
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long nanos,
+                           List<ChessMove> principalVariation) {
+
+    /**
+     * @return positions visited per second of wall-clock time
+     */
+    public long nodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+}
@@ -0,0 +1,172 @@
+package chess.engine;
+
+import chess.Move;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size table of search results keyed by Zobrist key, shared by any
+ * number of searches running on different threads without locking.
+ * <p>
+ * Each entry is two longs in one flat array: the packed data (best move,
+ * score, depth, bound and the search generation that wrote it) and the key
+ * XORed with that data. Two threads writing the same slot at once can leave
+ * one thread's key next to the other's data, but then the XOR no longer
+ * gives back the key being probed and the entry simply reads as a miss.
+ * <p>
+ * An entry is replaced by a result for a different position when the new
+ * search went at least as deep or the old entry is from an earlier search,
+ * so deep results survive a search's many shallow ones.
+ */
+public final class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    private static final int MOVE_BITS = 19;
+    private static final int SCORE_SHIFT = MOVE_BITS;
+    private static final int DEPTH_SHIFT = SCORE_SHIFT + 16;
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + 8;
+    private static final int GENERATION_SHIFT = BOUND_SHIFT + 2;
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private final long[] entries;
+    private final int mask;
+    private volatile int generation;
+
+    /**
+     * @param megabytes how much memory the table may use; it is rounded down
+     *                  to a power of two number of entries
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Table size must be at least 1 MB");
+        }
+        long slots = Long.highestOneBit((long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+        // two longs per entry, and the array has to fit in an int index
+        slots = Math.min(slots, 1L << 29);
+        this.entries = new long[(int) slots * 2];
+        this.mask = (int) slots - 1;
+    }
+
+    /**
+     * @return the number of entries the table holds
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Marks the start of a new search, so entries from earlier ones give way
+     * to new results
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0L);
+    }
+
+    /**
+     * @return the packed data stored for the key, or 0 if there is none
+     */
+    public long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long data = entries[index + 1];
+        return (entries[index] ^ data) == key ? data : 0L;
+    }
+
+    /**
+     * Stores a search result, if the replacement policy allows it
+     *
+     * @param key   the position's Zobrist key
+     * @param move  the best move found, {@link Move}-encoded, or Move.NONE
+     * @param score the score found, from the side to move's point of view
+     * @param depth the depth searched
+     * @param bound EXACT, LOWER or UPPER
+     * @param ply   how far the position is from the root, so mate scores can
+     *              be stored relative to the position rather than the root
+     */
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        int index = ((int) key & mask) << 1;
+        long old = entries[index + 1];
+        boolean samePosition = (entries[index] ^ old) == key;
+        int current = generation;
+        if (old != 0 && !samePosition && depth < depth(old) && generation(old) == current) {
+            return;
+        }
+        if (samePosition && move == Move.NONE) {
+            // keep the move we knew of rather than forgetting it
+            move = move(old);
+        }
+        long data = (move & ((1L << MOVE_BITS) - 1))
+                | ((long) (toTable(score, ply) & 0xFFFF) << SCORE_SHIFT)
+                | ((long) Math.min(depth, 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) current << GENERATION_SHIFT);
+        entries[index + 1] = data;
+        entries[index] = key ^ data;
+    }
+
+    /**
+     * @return roughly how full the table is with this search's entries, in
+     * parts per thousand
+     */
+    public int hashfull() {
+        int sample = Math.min(1000, capacity());
+        int used = 0;
+        int current = generation;
+        for (int i = 0; i < sample; i++) {
+            long data = entries[(i << 1) + 1];
+            if (data != 0 && generation(data) == current) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public static int move(long data) {
+        return (int) (data & ((1L << MOVE_BITS) - 1));
+    }
+
+    /**
+     * @return the stored score, with mate scores made relative to the root again
+     */
+    public static int score(long data, int ply) {
+        int score = (short) (data >>> SCORE_SHIFT);
+        if (score >= Search.MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -Search.MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Mate scores count plies from the root; stored ones count from the
+     * position itself so they stay right when it is reached another way
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= Search.MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -Search.MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,14 @@
+package chess.pgn;
+
+import java.io.IOException;
+
+/**
+ * Thrown when PGN text can't be read: a malformed header, or a move that
+ * isn't legal in the game being replayed. The reader can carry on with the
+ * next game afterwards.
+ */
+public class PgnException extends IOException {
+    public PgnException(String message) {
+        super(message);
+    }
+}
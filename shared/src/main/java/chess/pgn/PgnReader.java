@@ -0,0 +1,431 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveList;
+import chess.MoveUndo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads games from PGN text one at a time, however large the file. Bytes
+ * come through a fixed-size buffer, from a channel or from a file mapped
+ * into memory a piece at a time, so memory use doesn't grow with the file.
+ * <p>
+ * Each game's moves are read one at a time and played on a single
+ * ChessGame, which is how SAN is resolved, and handed back
+ * {@link Move}-encoded; no move objects are kept. Comments, variations and
+ * annotation glyphs are skipped.
+ * <pre>{@code
+ * try (PgnReader reader = PgnReader.open(path)) {
+ *     while (reader.nextGame()) {
+ *         int move;
+ *         while ((move = reader.nextMove()) != Move.NONE) {
+ *             ...
+ *         }
+ *     }
+ * }
+ * }</pre>
+ * Moves left unread are skipped by the next call to {@link #nextGame()}, as
+ * is the rest of a game that had an illegal move.
+ * <p>
+ * Usage: {@code PgnReader file.pgn} replays every game in the file and
+ * reports how many games per second it read.
+ */
+public final class PgnReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // how much of a file to map at once; mappings have to fit an int
+    private static final long MAP_SIZE = 1L << 28;
+
+    // what nextToken stopped at
+    private static final int TOKEN_MOVE = 0;
+    private static final int TOKEN_RESULT = 1;
+    private static final int TOKEN_END = 2;
+
+    private final ReadableByteChannel channel;
+    private final FileChannel file;
+    private ByteBuffer buffer;
+    private long mapped;
+
+    private final StringBuilder token = new StringBuilder(32);
+    private byte[] text = new byte[256];
+    private final MoveList moves = new MoveList();
+    private final MoveUndo undo = new MoveUndo();
+
+    private Map<String, String> headers = Map.of();
+    private ChessGame game;
+    private String result;
+    private boolean inMovetext;
+    private long games;
+    private int line = 1;
+    private boolean lastWasNewline = true;
+
+    /**
+     * Reads PGN from a channel through a buffer of its own
+     *
+     * @param channel the PGN text, UTF-8 encoded
+     */
+    public PgnReader(ReadableByteChannel channel) {
+        this(channel, BUFFER_SIZE);
+    }
+
+    PgnReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.file = null;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize).flip();
+    }
+
+    private PgnReader(FileChannel file) {
+        this.channel = file;
+        this.file = file;
+        this.buffer = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * Opens a PGN file, mapping it into memory a section at a time
+     *
+     * @param path the file to read
+     * @return a reader positioned before the first game
+     */
+    public static PgnReader open(Path path) throws IOException {
+        return new PgnReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Moves on to the next game, reading its headers and setting up its
+     * starting position
+     *
+     * @return False if there are no more games
+     * @throws PgnException if a header is malformed or its FEN can't be read
+     */
+    public boolean nextGame() throws IOException {
+        while (inMovetext) {
+            if (nextToken() != TOKEN_MOVE) {
+                inMovetext = false;
+            }
+        }
+        headers = new LinkedHashMap<>();
+        result = null;
+        // set already so a bad header skips the rest of its game next time
+        inMovetext = true;
+        int c;
+        while ((c = skipSpaceAndComments()) == '[') {
+            readHeader();
+        }
+        if (c < 0 && headers.isEmpty()) {
+            inMovetext = false;
+            return false;
+        }
+        games++;
+        String fen = headers.get("FEN");
+        try {
+            game = fen == null ? new ChessGame() : Fen.parse(fen);
+        } catch (IllegalArgumentException e) {
+            throw error(e.getMessage());
+        }
+        headers = Collections.unmodifiableMap(headers);
+        return true;
+    }
+
+    /**
+     * Reads the current game's next move and plays it
+     *
+     * @return the {@link Move}-encoded move, or Move.NONE at the end of the game
+     * @throws PgnException if the move is not legal or its SAN is malformed
+     */
+    public int nextMove() throws IOException {
+        if (!inMovetext) {
+            return Move.NONE;
+        }
+        if (nextToken() != TOKEN_MOVE) {
+            inMovetext = false;
+            return Move.NONE;
+        }
+        int move = San.parse(game, token, moves);
+        if (move == Move.NONE) {
+            throw error("No legal move matches '" + token + "'");
+        }
+        game.makeMove(move, undo);
+        return move;
+    }
+
+    /**
+     * @return the current game's headers, such as Event, White and Black, in
+     * the order they were read
+     */
+    public Map<String, String> headers() {
+        return headers;
+    }
+
+    /**
+     * @return the current game, in the position after the moves read so far
+     */
+    public ChessGame game() {
+        return game;
+    }
+
+    /**
+     * @return the result that ended the current game's movetext, such as
+     * "1-0" or "*", or the Result header until the movetext has been read
+     */
+    public String result() {
+        return result != null ? result : headers.get("Result");
+    }
+
+    /**
+     * @return how many games have been started so far
+     */
+    public long gamesRead() {
+        return games;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads up to the next move or the end of the movetext, leaving a move's
+     * SAN in the token buffer
+     */
+    private int nextToken() throws IOException {
+        while (true) {
+            int c = skipSpaceAndComments();
+            if (c < 0 || c == '[') {
+                return TOKEN_END;
+            }
+            if (c == '(') {
+                skipVariation();
+                continue;
+            }
+            if (c == '$') {
+                read();
+                skipWord();
+                continue;
+            }
+            if (c == ')' || c == ']' || c == '}') {
+                // stray closing bracket, left over from a damaged game
+                read();
+                continue;
+            }
+            token.setLength(0);
+            if (c >= '0' && c <= '9') {
+                // a move number, or one of the results
+                while ((c = peek()) >= '0' && c <= '9') {
+                    token.append((char) read());
+                }
+                if (c == '.') {
+                    skipDots();
+                    continue;
+                }
+            } else if (c == '.') {
+                skipDots();
+                continue;
+            }
+            while ((c = peek()) >= 0 && !isDelimiter(c)) {
+                token.append((char) read());
+            }
+            if (isResult(token)) {
+                result = token.toString();
+                return TOKEN_RESULT;
+            }
+            return TOKEN_MOVE;
+        }
+    }
+
+    private static boolean isResult(CharSequence token) {
+        return switch (token.length()) {
+            case 1 -> token.charAt(0) == '*';
+            case 3 -> "1-0".contentEquals(token) || "0-1".contentEquals(token);
+            case 7 -> "1/2-1/2".contentEquals(token);
+            default -> false;
+        };
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c <= ' ' || c == '{' || c == '}' || c == '(' || c == ')' || c == ';' || c == '[' || c == ']';
+    }
+
+    private void readHeader() throws IOException {
+        read();
+        skipSpace();
+        token.setLength(0);
+        int c;
+        while ((c = peek()) > ' ' && c != '"' && c != ']') {
+            token.append((char) read());
+        }
+        skipSpace();
+        if (read() != '"') {
+            throw error("Header " + token + " has no quoted value");
+        }
+        int length = 0;
+        while ((c = read()) != '"') {
+            if (c < 0 || c == '\n') {
+                throw error("Header " + token + " value is not closed");
+            }
+            if (c == '\\') {
+                c = read();
+            }
+            if (length == text.length) {
+                text = Arrays.copyOf(text, length * 2);
+            }
+            text[length++] = (byte) c;
+        }
+        skipSpace();
+        if (read() != ']') {
+            throw error("Header " + token + " is not closed");
+        }
+        headers.put(token.toString(), new String(text, 0, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Skips whitespace, comments and escaped lines
+     *
+     * @return the next character, which is left unread, or -1 at the end
+     */
+    private int skipSpaceAndComments() throws IOException {
+        while (true) {
+            int c = skipSpace();
+            if (c == '{') {
+                while ((c = read()) >= 0 && c != '}') {
+                    // comment text
+                }
+            } else if (c == ';' || (c == '%' && lastWasNewline)) {
+                while ((c = read()) >= 0 && c != '\n') {
+                    // rest of the line
+                }
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private int skipSpace() throws IOException {
+        int c;
+        while ((c = peek()) >= 0 && c <= ' ') {
+            read();
+        }
+        return c;
+    }
+
+    /**
+     * Skips a variation in parentheses, along with any nested in it
+     */
+    private void skipVariation() throws IOException {
+        int depth = 0;
+        int c;
+        while ((c = read()) >= 0) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return;
+            } else if (c == '{') {
+                while ((c = read()) >= 0 && c != '}') {
+                    // a comment may hold parentheses of its own
+                }
+            }
+        }
+    }
+
+    private void skipWord() throws IOException {
+        int c;
+        while ((c = peek()) >= 0 && !isDelimiter(c)) {
+            read();
+        }
+    }
+
+    private void skipDots() throws IOException {
+        while (peek() == '.') {
+            read();
+        }
+    }
+
+    private int peek() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c >= 0) {
+            buffer.position(buffer.position() + 1);
+            lastWasNewline = c == '\n';
+            if (lastWasNewline) {
+                line++;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Refills the buffer from the channel, or maps the next section of the file
+     *
+     * @return False at the end of the input
+     */
+    private boolean fill() throws IOException {
+        if (file != null) {
+            long size = file.size();
+            if (mapped >= size) {
+                return false;
+            }
+            long length = Math.min(MAP_SIZE, size - mapped);
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, mapped, length);
+            mapped += length;
+            return true;
+        }
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        return read > 0;
+    }
+
+    private PgnException error(String message) {
+        return new PgnException(message + " (game " + games + ", line " + line + ")");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: PgnReader file.pgn");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        long moveCount = 0;
+        long errors = 0;
+        try (PgnReader reader = open(Path.of(args[0]))) {
+            while (true) {
+                try {
+                    if (!reader.nextGame()) {
+                        break;
+                    }
+                    while (reader.nextMove() != Move.NONE) {
+                        moveCount++;
+                    }
+                } catch (PgnException e) {
+                    errors++;
+                    System.err.println(e.getMessage());
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d games, %d moves, %d errors in %.3f s (%.0f games/s, %.0f moves/s)%n",
+                    reader.gamesRead(), moveCount, errors, seconds,
+                    reader.gamesRead() / Math.max(seconds, 1e-9), moveCount / Math.max(seconds, 1e-9));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveList;
+import chess.MoveUndo;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games as PGN text one at a time, so any number of them can be
+ * streamed out without holding more than one in memory. Each game's moves
+ * come from its {@link ChessGame#getMoveHistory() move history}, replayed
+ * from its starting position to write them in SAN. If a move can't be
+ * replayed, the moves stop there and the result is written as "*", since
+ * the final position no longer follows from the moves written.
+ * <p>
+ * The Seven Tag Roster comes first in its standard order, with "?" for any
+ * tag not given, then the other tags in the order the map gives them. A game
+ * that didn't start from the usual position gets SetUp and FEN tags.
+ */
+public final class PgnWriter implements Closeable, Flushable {
+    private static final List<String> SEVEN_TAG_ROSTER =
+            List.of("Event", "Site", "Date", "Round", "White", "Black", "Result");
+    private static final int LINE_WIDTH = 80;
+
+    private final Writer out;
+    // the current game's movetext, finished lines first
+    private final StringBuilder movetext = new StringBuilder(1024);
+    private final StringBuilder line = new StringBuilder(LINE_WIDTH + 16);
+    private final StringBuilder san = new StringBuilder(8);
+    private final MoveList moves = new MoveList();
+    private final MoveUndo undo = new MoveUndo();
+    private long games;
+
+    /**
+     * @param out where to write the PGN text; buffering is left to the caller
+     */
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Opens a PGN file for writing, replacing anything already in it
+     *
+     * @param path the file to write
+     */
+    public static PgnWriter create(Path path) throws IOException {
+        return new PgnWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes one game
+     *
+     * @param headers the game's tags; a missing Result is worked out from
+     *                the final position if the game is over, and "*" if not
+     * @param game    the game whose moves to write, or null for one that
+     *                has no moves yet
+     */
+    public void write(Map<String, String> headers, ChessGame game) throws IOException {
+        String startFen = game == null ? Fen.START : game.getStartFen();
+        ChessGame replay = Fen.parse(startFen);
+        int[] history = game == null ? new int[0] : game.getMoveHistory();
+
+        movetext.setLength(0);
+        line.setLength(0);
+        boolean complete = true;
+        for (int i = 0; i < history.length; i++) {
+            // nothing after a move that isn't legal here could be written as SAN
+            int move = replay.legalMove(history[i]);
+            if (move == Move.NONE) {
+                complete = false;
+                break;
+            }
+            boolean white = replay.getTeamTurn() == ChessGame.TeamColor.WHITE;
+            if (white || i == 0) {
+                san.setLength(0);
+                san.append(replay.getFullmoveNumber()).append(white ? "." : "...");
+                token(san);
+            }
+            san.setLength(0);
+            San.append(replay, move, moves, undo, san);
+            token(san);
+            replay.makeMove(move, undo);
+        }
+        String result = complete ? headers.get("Result") : "*";
+        if (result == null) {
+            result = result(game);
+        }
+        token(result);
+
+        for (String tag : SEVEN_TAG_ROSTER) {
+            String value = tag.equals("Result") ? result : headers.get(tag);
+            writeTag(tag, value == null ? "?" : value);
+        }
+        if (!Fen.START.equals(startFen)) {
+            writeTag("SetUp", "1");
+            writeTag("FEN", startFen);
+        }
+        for (Map.Entry<String, String> tag : headers.entrySet()) {
+            if (!SEVEN_TAG_ROSTER.contains(tag.getKey()) && !tag.getKey().equals("SetUp") && !tag.getKey().equals("FEN")) {
+                writeTag(tag.getKey(), tag.getValue());
+            }
+        }
+        out.write('\n');
+        out.append(movetext).append(line).write("\n\n");
+        games++;
+    }
+
+    /**
+     * @return how many games have been written
+     */
+    public long gamesWritten() {
+        return games;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * @return the PGN result the game's position decides: a win if the side
+     * to move is checkmated, a draw on stalemate, otherwise "*"
+     */
+    public static String result(ChessGame game) {
+        if (game == null) {
+            return "*";
+        }
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        if (game.isInCheckmate(turn)) {
+            return turn == ChessGame.TeamColor.WHITE ? "0-1" : "1-0";
+        }
+        return game.isInStalemate(turn) ? "1/2-1/2" : "*";
+    }
+
+    private void writeTag(String tag, String value) throws IOException {
+        out.write('[');
+        out.write(tag);
+        out.write(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+            }
+            out.write(c);
+        }
+        out.write("\"]\n");
+    }
+
+    /**
+     * Adds a token to the movetext, starting a new line first if it wouldn't fit
+     */
+    private void token(CharSequence token) {
+        if (!line.isEmpty() && line.length() + 1 + token.length() > LINE_WIDTH) {
+            movetext.append(line).append('\n');
+            line.setLength(0);
+        }
+        if (!line.isEmpty()) {
+            line.append(' ');
+        }
+        line.append(token);
+    }
+}
@@ -0,0 +1,236 @@
+package chess.pgn;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+import chess.MoveUndo;
+
+/**
+ * Reads and writes moves in Standard Algebraic Notation, the notation PGN
+ * movetext uses: {@code e4}, {@code Nbd7}, {@code exd5}, {@code e8=Q+},
+ * {@code O-O}. A move is read by matching the notation against the legal
+ * moves of the position, so anything the notation leaves out is filled in
+ * from the board. Check and annotation marks are ignored when reading, and
+ * long algebraic forms like {@code Ng1-f3} are accepted too.
+ */
+public final class San {
+    private static final String PIECE_LETTERS = "KQBNRP";
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+
+    private San() {
+    }
+
+    /**
+     * Finds the legal move the notation describes
+     *
+     * @param game the position the move is played from
+     * @param san  the move in Standard Algebraic Notation
+     * @return the {@link Move}-encoded move
+     * @throws IllegalArgumentException if no legal move, or more than one,
+     *                                  matches the notation
+     */
+    public static int parse(ChessGame game, String san) {
+        int move = parse(game, san, new MoveList());
+        if (move == Move.NONE) {
+            throw new IllegalArgumentException("No single legal move matches '" + san + "'");
+        }
+        return move;
+    }
+
+    /**
+     * Finds the legal move the notation describes without allocating
+     *
+     * @param moves a list to generate the legal moves into
+     * @return the {@link Move}-encoded move, or Move.NONE if no legal move or
+     * more than one matches
+     */
+    static int parse(ChessGame game, CharSequence san, MoveList moves) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        if (end == 0) {
+            return Move.NONE;
+        }
+        moves.clear();
+        game.generateLegalMoves(moves);
+
+        char first = san.charAt(0);
+        if (first == 'O' || first == '0') {
+            return castle(moves, end >= 5);
+        }
+
+        ChessPiece.PieceType promotion = null;
+        if (end >= 2 && san.charAt(end - 2) == '=') {
+            promotion = pieceType(Character.toUpperCase(san.charAt(end - 1)));
+            end -= 2;
+        } else if (end >= 3 && "QRBNqrbn".indexOf(san.charAt(end - 1)) >= 0 && isRank(san.charAt(end - 2))) {
+            promotion = pieceType(Character.toUpperCase(san.charAt(end - 1)));
+            end -= 1;
+        }
+        if (end < 2 || !isFile(san.charAt(end - 2)) || !isRank(san.charAt(end - 1))) {
+            return Move.NONE;
+        }
+        int to = BitBoard.square(san.charAt(end - 1) - '0', san.charAt(end - 2) - 'a' + 1);
+
+        ChessPiece.PieceType type = pieceType(first);
+        int start = type == null ? 0 : 1;
+        if (type == null) {
+            type = ChessPiece.PieceType.PAWN;
+        }
+        // what is left between the piece letter and the target square says
+        // which piece moves when more than one could
+        int fromColumn = 0;
+        int fromRow = 0;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (isFile(c)) {
+                fromColumn = c - 'a' + 1;
+            } else if (isRank(c)) {
+                fromRow = c - '0';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                return Move.NONE;
+            }
+        }
+
+        BitBoard bits = game.getBoard().getBitBoard();
+        int found = Move.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = Move.from(move);
+            if (Move.to(move) != to || bits.pieceAt(from) % 6 != type.ordinal() || Move.isCastle(move)
+                    || (fromColumn != 0 && BitBoard.column(from) != fromColumn)
+                    || (fromRow != 0 && BitBoard.row(from) != fromRow)
+                    || Move.promotion(move) != promotion) {
+                continue;
+            }
+            if (found != Move.NONE) {
+                return Move.NONE;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    /**
+     * Writes a legal move in Standard Algebraic Notation, naming the start
+     * column or row only when another piece of the same kind could also
+     * reach the square, and marking check and mate
+     *
+     * @param game the position the move is played from, which is left unchanged
+     * @param move a legal {@link Move}-encoded move
+     * @return the move in SAN
+     */
+    public static String toString(ChessGame game, int move) {
+        StringBuilder san = new StringBuilder(8);
+        append(game, move, new MoveList(), new MoveUndo(), san);
+        return san.toString();
+    }
+
+    /**
+     * Writes a legal move in Standard Algebraic Notation without allocating
+     *
+     * @param moves a list to generate the legal moves into
+     * @param undo  used to try the move, to see whether it gives check
+     * @param san   where to append the notation
+     */
+    static void append(ChessGame game, int move, MoveList moves, MoveUndo undo, StringBuilder san) {
+        BitBoard bits = game.getBoard().getBitBoard();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int type = bits.pieceAt(from) % 6;
+        if (Move.isCastle(move)) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else {
+            if (type == PAWN) {
+                if (Move.isCapture(move)) {
+                    san.append(file(from)).append('x');
+                }
+            } else {
+                san.append(PIECE_LETTERS.charAt(type));
+                appendDisambiguation(game, bits, move, moves, san);
+                if (Move.isCapture(move)) {
+                    san.append('x');
+                }
+            }
+            san.append(file(to)).append((char) ('0' + BitBoard.row(to)));
+            if (Move.isPromotion(move)) {
+                san.append('=').append(PIECE_LETTERS.charAt(Move.promotion(move).ordinal()));
+            }
+        }
+
+        game.makeMove(move, undo);
+        ChessGame.TeamColor defender = game.getTeamTurn();
+        if (game.isInCheckmate(defender)) {
+            san.append('#');
+        } else if (game.isInCheck(defender)) {
+            san.append('+');
+        }
+        game.unmakeMove(undo);
+    }
+
+    private static void appendDisambiguation(ChessGame game, BitBoard bits, int move, MoveList moves, StringBuilder san) {
+        int from = Move.from(move);
+        int type = bits.pieceAt(from) % 6;
+        boolean ambiguous = false;
+        boolean sameColumn = false;
+        boolean sameRow = false;
+        moves.clear();
+        game.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int other = moves.get(i);
+            int otherFrom = Move.from(other);
+            if (Move.to(other) != Move.to(move) || otherFrom == from || bits.pieceAt(otherFrom) % 6 != type) {
+                continue;
+            }
+            ambiguous = true;
+            sameColumn |= BitBoard.column(otherFrom) == BitBoard.column(from);
+            sameRow |= BitBoard.row(otherFrom) == BitBoard.row(from);
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameColumn) {
+            san.append(file(from));
+        } else if (!sameRow) {
+            san.append((char) ('0' + BitBoard.row(from)));
+        } else {
+            san.append(file(from)).append((char) ('0' + BitBoard.row(from)));
+        }
+    }
+
+    private static char file(int square) {
+        return (char) ('a' + BitBoard.column(square) - 1);
+    }
+
+    private static int castle(MoveList moves, boolean queenside) {
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (Move.isCastle(move) && (Move.to(move) < Move.from(move)) == queenside) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    private static ChessPiece.PieceType pieceType(char letter) {
+        return switch (letter) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> null;
+        };
+    }
+
+    private static boolean isFile(char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(char c) {
+        return c >= '1' && c <= '8';
+    }
+}
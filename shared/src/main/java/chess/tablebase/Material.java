@@ -0,0 +1,275 @@
+package chess.tablebase;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The pieces an endgame table covers, like KQvK, and how positions with
+ * them are numbered. Pieces are listed white first, each side in the order
+ * K, Q, R, B, N, P, and the stronger side is always white; a position
+ * where black has the stronger pieces is looked up with its colors
+ * swapped.
+ * <p>
+ * A full index is the side to move followed by each piece's square, six
+ * bits apiece. Tables on disk keep only the positions where white's king
+ * is in one corner of the board, since the rest are reflections: the
+ * triangle a1-d1-d4 without pawns, or files a to d with them, where only
+ * left and right mirror.
+ */
+final class Material {
+    private static final String LETTERS = "KQBNRP";
+    // piece types in naming order, strongest first
+    private static final int[] NAME_ORDER = {0, 1, 4, 2, 3, 5};
+    // each type's place in NAME_ORDER
+    private static final int[] RANK = {0, 1, 3, 4, 2, 5};
+    private static final int[] VALUES = {0, 9, 3, 3, 5, 1};
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+
+    static final int PAWNLESS_REGIONS = 10;
+    static final int PAWN_REGIONS = 32;
+    private static final int[] PAWNLESS_REGION = new int[64];
+    private static final int[] PAWN_REGION = new int[64];
+    private static final int[] PAWNLESS_REGION_SQUARE = new int[PAWNLESS_REGIONS];
+    private static final int[] PAWN_REGION_SQUARE = new int[PAWN_REGIONS];
+
+    static {
+        Arrays.fill(PAWNLESS_REGION, -1);
+        Arrays.fill(PAWN_REGION, -1);
+        int regions = 0;
+        for (int square = 0; square < 64; square++) {
+            int row = square >>> 3;
+            int col = square & 7;
+            if (col < 4) {
+                PAWN_REGION[square] = row * 4 + col;
+                PAWN_REGION_SQUARE[row * 4 + col] = square;
+            }
+            if (col < 4 && row <= col) {
+                PAWNLESS_REGION[square] = regions;
+                PAWNLESS_REGION_SQUARE[regions++] = square;
+            }
+        }
+    }
+
+    private final int[] pieces;
+    private final boolean pawns;
+    private final String name;
+
+    /**
+     * @param pieces piece indices, white's first, each side strongest first
+     */
+    private Material(int[] pieces) {
+        this.pieces = pieces;
+        boolean anyPawn = false;
+        for (int piece : pieces) {
+            anyPawn |= piece % 6 == PAWN;
+        }
+        this.pawns = anyPawn;
+        this.name = side(pieces, ChessGame.TeamColor.WHITE) + "v" + side(pieces, ChessGame.TeamColor.BLACK);
+    }
+
+    /**
+     * Reads a name like KQvK or KvKR, each side starting with its king
+     *
+     * @throws IllegalArgumentException if the name doesn't describe two sides
+     *                                  with one king each
+     */
+    static Material parse(String name) {
+        String[] sides = name.toUpperCase().split("V", -1);
+        if (sides.length != 2) {
+            throw new IllegalArgumentException("Material should look like KQvK: " + name);
+        }
+        int[] counts = new int[BitBoard.PIECE_KINDS];
+        for (int team = 0; team < 2; team++) {
+            String side = sides[team];
+            if (side.isEmpty() || side.charAt(0) != 'K' || side.indexOf('K', 1) >= 0) {
+                throw new IllegalArgumentException("Each side needs exactly one king, first: " + name);
+            }
+            for (int i = 0; i < side.length(); i++) {
+                int type = LETTERS.indexOf(side.charAt(i));
+                if (type < 0) {
+                    throw new IllegalArgumentException("Unknown piece '" + side.charAt(i) + "' in " + name);
+                }
+                counts[team * 6 + type]++;
+            }
+        }
+        return of(counts);
+    }
+
+    /**
+     * @param counts how many of each piece index there are
+     */
+    static Material of(int[] counts) {
+        List<Integer> pieces = new ArrayList<>();
+        for (int team = 0; team < 2; team++) {
+            for (int type : NAME_ORDER) {
+                for (int i = 0; i < counts[team * 6 + type]; i++) {
+                    pieces.add(team * 6 + type);
+                }
+            }
+        }
+        return new Material(pieces.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * @return the same pieces with the colors swapped
+     */
+    Material flipped() {
+        int[] counts = new int[BitBoard.PIECE_KINDS];
+        for (int piece : pieces) {
+            counts[flip(piece)]++;
+        }
+        return of(counts);
+    }
+
+    /**
+     * @return True if black's pieces are the stronger ones, so positions
+     * are looked up with the colors swapped
+     */
+    boolean needsFlip() {
+        int white = 0;
+        int black = 0;
+        StringBuilder whiteOrder = new StringBuilder();
+        StringBuilder blackOrder = new StringBuilder();
+        for (int piece : pieces) {
+            int type = piece % 6;
+            if (piece < 6) {
+                white += VALUES[type];
+                whiteOrder.append(RANK[type]);
+            } else {
+                black += VALUES[type];
+                blackOrder.append(RANK[type]);
+            }
+        }
+        return black > white || (black == white && blackOrder.toString().compareTo(whiteOrder.toString()) < 0);
+    }
+
+    /**
+     * @return the counts of each piece index packed two bits apiece, the way
+     * a probe works them out from a board
+     */
+    int key() {
+        int key = 0;
+        for (int piece : pieces) {
+            key += 1 << (2 * piece);
+        }
+        return key;
+    }
+
+    static int flip(int piece) {
+        return piece < 6 ? piece + 6 : piece - 6;
+    }
+
+    String name() {
+        return name;
+    }
+
+    int pieceCount() {
+        return pieces.length;
+    }
+
+    int piece(int slot) {
+        return pieces[slot];
+    }
+
+    boolean hasPawns() {
+        return pawns;
+    }
+
+    int fullSize() {
+        return 2 << (6 * pieces.length);
+    }
+
+    int reducedSize() {
+        return 2 * regions() << (6 * (pieces.length - 1));
+    }
+
+    private int regions() {
+        return pawns ? PAWN_REGIONS : PAWNLESS_REGIONS;
+    }
+
+    /**
+     * @return the reflection that brings white's king into the stored
+     * corner: bit 0 mirrors files, bit 1 rows, bit 2 swaps them
+     */
+    int symmetry(int kingSquare) {
+        int symmetry = 0;
+        if ((kingSquare & 7) > 3) {
+            symmetry |= 1;
+            kingSquare ^= 7;
+        }
+        if (!pawns) {
+            if ((kingSquare >>> 3) > 3) {
+                symmetry |= 2;
+                kingSquare ^= 56;
+            }
+            if ((kingSquare >>> 3) > (kingSquare & 7)) {
+                symmetry |= 4;
+            }
+        }
+        return symmetry;
+    }
+
+    static int transform(int square, int symmetry) {
+        if ((symmetry & 1) != 0) {
+            square ^= 7;
+        }
+        if ((symmetry & 2) != 0) {
+            square ^= 56;
+        }
+        if ((symmetry & 4) != 0) {
+            square = ((square & 7) << 3) | (square >>> 3);
+        }
+        return square;
+    }
+
+    /**
+     * @param kingSquare white's king, already brought into the stored corner
+     * @param rest       the other pieces' squares, six bits each, in order
+     */
+    int reducedIndex(int sideToMove, int kingSquare, int rest) {
+        int region = pawns ? PAWN_REGION[kingSquare] : PAWNLESS_REGION[kingSquare];
+        return ((sideToMove * regions() + region) << (6 * (pieces.length - 1))) | rest;
+    }
+
+    /**
+     * @return the full index of the position a reduced index stands for
+     */
+    int fullIndex(int reducedIndex) {
+        int restBits = 6 * (pieces.length - 1);
+        int rest = reducedIndex & ((1 << restBits) - 1);
+        int region = (reducedIndex >>> restBits) % regions();
+        int sideToMove = (reducedIndex >>> restBits) / regions();
+        int king = pawns ? PAWN_REGION_SQUARE[region] : PAWNLESS_REGION_SQUARE[region];
+        return (sideToMove << (6 * pieces.length)) | (king << restBits) | rest;
+    }
+
+    private static String side(int[] pieces, ChessGame.TeamColor team) {
+        StringBuilder side = new StringBuilder();
+        for (int piece : pieces) {
+            if (BitBoard.teamOf(piece) == team) {
+                side.append(LETTERS.charAt(piece % 6));
+            }
+        }
+        return side.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Material other && Arrays.equals(pieces, other.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(pieces);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,242 @@
+package chess.tablebase;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.Move;
+import chess.MoveList;
+import chess.MoveUndo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exact results for endgames with few pieces, read from tables made by
+ * {@link TablebaseGenerator}. Each table file is mapped into memory and a
+ * probe works out the position's index from its pieces and reads one byte,
+ * so it costs the same however far the mate is. The mappings are only read,
+ * so one Tablebase can be shared by every thread, and every process that
+ * maps the same files shares their pages.
+ * <p>
+ * A probe gives distance to mate in plies from the side to move's point of
+ * view, packed into an int; read it with {@link #isWin}, {@link #isLoss},
+ * {@link #distance} and the rest. Positions with castling rights or an en
+ * passant capture available aren't in the tables.
+ */
+public final class Tablebase {
+    public static final int MAX_PIECES = 4;
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+    public static final int DRAW = 0;
+    public static final byte STALEMATE = Byte.MIN_VALUE;
+    // the furthest mate a table can store, in plies
+    public static final int MAX_DISTANCE = Byte.MAX_VALUE;
+    static final long MAGIC = 0x43484553_53544231L; // "CHESSTB1"
+    static final int HEADER_BYTES = 16;
+
+    // sorted material keys and the table each is read from
+    private final int[] keys;
+    private final Table[] tables;
+    private final int maxPieces;
+
+    /**
+     * @param flipped True if the board's colors are swapped to read the table
+     */
+    private record Table(Material material, ByteBuffer data, boolean flipped) {
+    }
+
+    private Tablebase(Map<Integer, Table> byKey) {
+        this.keys = byKey.keySet().stream().mapToInt(Integer::intValue).toArray();
+        this.tables = byKey.values().toArray(new Table[0]);
+        this.maxPieces = Arrays.stream(tables).mapToInt(table -> table.material().pieceCount()).max().orElse(0);
+    }
+
+    /**
+     * Maps every {@code .tb} file in a directory
+     *
+     * @throws IOException if a file can't be read or isn't a table
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Map<Integer, Table> byKey = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.tb")) {
+            for (Path file : files) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    Material material = header(table, file);
+                    byKey.put(material.key(), new Table(material, table, false));
+                    byKey.putIfAbsent(material.flipped().key(), new Table(material, table, true));
+                }
+            }
+        }
+        return new Tablebase(byKey);
+    }
+
+    private static Material header(ByteBuffer table, Path file) throws IOException {
+        if (table.capacity() < HEADER_BYTES || table.getLong(0) != MAGIC) {
+            throw new IOException("Not an endgame table: " + file);
+        }
+        int pieces = table.get(8);
+        int[] counts = new int[BitBoard.PIECE_KINDS];
+        for (int slot = 0; slot < pieces && slot < HEADER_BYTES - 9; slot++) {
+            int piece = table.get(9 + slot);
+            if (piece < 0 || piece >= BitBoard.PIECE_KINDS) {
+                throw new IOException("Not an endgame table: " + file);
+            }
+            counts[piece]++;
+        }
+        Material material = Material.of(counts);
+        if (material.pieceCount() != pieces || table.capacity() != HEADER_BYTES + material.reducedSize()) {
+            throw new IOException("Endgame table has the wrong size: " + file);
+        }
+        return material;
+    }
+
+    /**
+     * @return the most pieces, kings included, of any table loaded
+     */
+    public int maxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * @return the names of the tables loaded, like KQvK
+     */
+    public List<String> materials() {
+        List<String> names = new ArrayList<>();
+        for (Table table : tables) {
+            if (!table.flipped()) {
+                names.add(table.material().name());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Looks the position up
+     *
+     * @return the result for the side to move, or NOT_FOUND if no table
+     * covers the position
+     */
+    public int probe(ChessGame game) {
+        if (game.getCastlingRights() != 0 || game.getEnPassantPosition() != null) {
+            return NOT_FOUND;
+        }
+        BitBoard bits = game.getBoard().getBitBoard();
+        if (Long.bitCount(bits.occupied()) > maxPieces) {
+            return NOT_FOUND;
+        }
+        int key = 0;
+        for (int piece = 0; piece < BitBoard.PIECE_KINDS; piece++) {
+            key += Long.bitCount(bits.pieces(piece)) << (2 * piece);
+        }
+        int found = Arrays.binarySearch(keys, key);
+        if (found < 0) {
+            return NOT_FOUND;
+        }
+
+        Table table = tables[found];
+        Material material = table.material();
+        boolean flip = table.flipped();
+        // squares are read in the table's colors, so swapped boards are also
+        // mirrored top to bottom
+        int flipSquare = flip ? 56 : 0;
+        int sideToMove = game.getTeamTurn().ordinal() ^ (flip ? 1 : 0);
+        int king = bits.kingSquare(flip ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE) ^ flipSquare;
+        int symmetry = material.symmetry(king);
+        long taken = 0;
+        int rest = 0;
+        for (int slot = 1; slot < material.pieceCount(); slot++) {
+            int piece = flip ? Material.flip(material.piece(slot)) : material.piece(slot);
+            int square = Long.numberOfTrailingZeros(bits.pieces(piece) & ~taken);
+            taken |= 1L << square;
+            rest = (rest << 6) | Material.transform(square ^ flipSquare, symmetry);
+        }
+        int index = material.reducedIndex(sideToMove, Material.transform(king, symmetry), rest);
+        return table.data().get(HEADER_BYTES + index);
+    }
+
+    /**
+     * Finds the move that mates fastest from a won position, holds the draw
+     * from a drawn one, or puts mate off longest from a lost one
+     *
+     * @return the move, or Move.NONE if there are no legal moves or the
+     * positions they lead to aren't in the tables
+     */
+    public int bestMove(ChessGame game) {
+        ChessGame position = new ChessGame(game);
+        MoveList moves = new MoveList();
+        MoveUndo undo = new MoveUndo();
+        position.generateLegalMoves(moves);
+        int best = Move.NONE;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            position.makeMove(move, undo);
+            int result = probe(position);
+            position.unmakeMove(undo);
+            if (result == NOT_FOUND) {
+                continue;
+            }
+            // ranked from the mover's side, so the opponent's loss is best
+            int rank = isLoss(result) ? 1000 - distance(result) : isWin(result) ? -1000 + distance(result) : 0;
+            if (rank > bestRank) {
+                bestRank = rank;
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return True if the side to move mates, in {@link #distance} plies
+     */
+    public static boolean isWin(int result) {
+        return result > 0;
+    }
+
+    /**
+     * @return True if the side to move is mated, in {@link #distance} plies
+     */
+    public static boolean isLoss(int result) {
+        return result < 0 && result > STALEMATE;
+    }
+
+    /**
+     * @return True if neither side can force mate
+     */
+    public static boolean isDraw(int result) {
+        return result == DRAW || result == STALEMATE;
+    }
+
+    /**
+     * @return True if the side to move is checkmated already
+     */
+    public static boolean isCheckmate(int result) {
+        return result == -1;
+    }
+
+    /**
+     * @return True if the side to move has no legal move and isn't in check
+     */
+    public static boolean isStalemate(int result) {
+        return result == STALEMATE;
+    }
+
+    /**
+     * @return how many plies until mate with best play, or 0 for a draw
+     */
+    public static int distance(int result) {
+        if (isWin(result)) {
+            return result;
+        }
+        return isLoss(result) ? -result - 1 : 0;
+    }
+}
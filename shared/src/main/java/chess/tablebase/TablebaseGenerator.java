@@ -0,0 +1,513 @@
+package chess.tablebase;
+
+import chess.Attacks;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds endgame tables by retrograde analysis. Every position with the
+ * table's pieces is first scored on its own: checkmate, stalemate, or the
+ * best it can do by a capture or promotion, which leaves the table and is
+ * looked up in a smaller one. Then, a ply at a time, results are carried
+ * back to the positions one move earlier. A position that can move into a
+ * lost one is won, and one whose every move reaches a won position is
+ * lost. Whatever is never reached this way is a draw.
+ * <p>
+ * A table is worked out in memory at one byte per position, 2 * 64^n bytes
+ * for n pieces, and only the reflection-free part is written out; see
+ * {@link Material}. Smaller tables a capture or promotion leads to are
+ * generated and written too. En passant is not considered: a double pawn
+ * push is scored as if the capture weren't there, which only matters for
+ * pawn-against-pawn endings.
+ * <p>
+ * Usage: {@code TablebaseGenerator directory [KQvK KRvK ...]}, which
+ * generates every three-piece table when no material is given.
+ */
+public final class TablebaseGenerator {
+    private static final String[] THREE_PIECES = {"KQvK", "KRvK", "KBvK", "KNvK", "KPvK"};
+    // states for positions that can no longer be lost, on top of move counts
+    private static final int INVALID = 0xFE;
+    private static final int CANNOT_LOSE = 0xFF;
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int QUEEN = ChessPiece.PieceType.QUEEN.ordinal();
+    private static final int BISHOP = ChessPiece.PieceType.BISHOP.ordinal();
+    private static final int KNIGHT = ChessPiece.PieceType.KNIGHT.ordinal();
+    private static final int ROOK = ChessPiece.PieceType.ROOK.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
+    private static final int[] PROMOTIONS = {QUEEN, ROOK, BISHOP, KNIGHT};
+
+    private final Map<Material, byte[]> tables = new HashMap<>();
+    // the smaller tables each table's captures and promotions lead to
+    private final Map<Material, Set<Material>> leadsTo = new HashMap<>();
+    // files already written, so tables shared by several materials are
+    // written once
+    private final Set<Path> written = new HashSet<>();
+
+    /**
+     * Generates a table and every smaller table it leads to, writing each
+     * to the directory as {@code <material>.tb} unless this generator has
+     * written it there already
+     *
+     * @param material the pieces, like KQvK; either side may be the stronger
+     * @return the files this call wrote
+     */
+    public List<Path> generate(String material, Path directory) throws IOException {
+        Material pieces = Material.parse(material);
+        if (pieces.pieceCount() > Tablebase.MAX_PIECES) {
+            throw new IllegalArgumentException("Tables go up to " + Tablebase.MAX_PIECES + " pieces: " + material);
+        }
+        Material root = pieces.needsFlip() ? pieces.flipped() : pieces;
+        full(root);
+        Set<Material> needed = new LinkedHashSet<>();
+        collect(root, needed);
+
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        for (Material table : needed) {
+            Path path = directory.resolve(table.name() + ".tb").toAbsolutePath().normalize();
+            if (written.add(path)) {
+                write(table, tables.get(table), path);
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Adds the material and every table it leads to, however indirectly
+     */
+    private void collect(Material material, Set<Material> needed) {
+        if (needed.add(material)) {
+            for (Material child : leadsTo.get(material)) {
+                collect(child, needed);
+            }
+        }
+    }
+
+    /**
+     * @return the whole table for the material, one byte per full index,
+     * generating it and any table it leads to first
+     */
+    byte[] full(Material material) {
+        byte[] table = tables.get(material);
+        if (table == null) {
+            Builder builder = new Builder(material);
+            table = builder.build();
+            tables.put(material, table);
+            leadsTo.put(material, builder.children);
+        }
+        return table;
+    }
+
+    private static void write(Material material, byte[] full, Path path) throws IOException {
+        ByteBuffer file = ByteBuffer.allocate(Tablebase.HEADER_BYTES + material.reducedSize());
+        file.putLong(Tablebase.MAGIC);
+        file.put((byte) material.pieceCount());
+        for (int slot = 0; slot < material.pieceCount(); slot++) {
+            file.put((byte) material.piece(slot));
+        }
+        file.position(Tablebase.HEADER_BYTES);
+        for (int index = 0; index < material.reducedSize(); index++) {
+            file.put(full[material.fullIndex(index)]);
+        }
+        Files.write(path, file.array());
+    }
+
+    private static byte win(int plies) {
+        if (plies > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Mate is too far away to store: " + plies + " plies");
+        }
+        return (byte) plies;
+    }
+
+    private static byte loss(int plies) {
+        if (plies > Byte.MAX_VALUE - 1) {
+            throw new IllegalStateException("Mate is too far away to store: " + plies + " plies");
+        }
+        return (byte) -(plies + 1);
+    }
+
+    /**
+     * @return plies to mate for a win or loss
+     */
+    private static int distance(byte value) {
+        return value > 0 ? value : -value - 1;
+    }
+
+    private static long bit(int square) {
+        return 1L << square;
+    }
+
+    private static long attacks(int piece, int square, long occupied) {
+        int type = piece % 6;
+        if (type == KING) {
+            return Attacks.king(square);
+        } else if (type == QUEEN) {
+            return Attacks.queen(square, occupied);
+        } else if (type == ROOK) {
+            return Attacks.rook(square, occupied);
+        } else if (type == BISHOP) {
+            return Attacks.bishop(square, occupied);
+        } else if (type == KNIGHT) {
+            return Attacks.knight(square);
+        }
+        return Attacks.pawn(piece < 6 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK, square);
+    }
+
+    /**
+     * Where a capture or promotion leads: the smaller table, whether it is
+     * looked up with colors swapped, and which of our slots fills each of
+     * its slots
+     */
+    private record Exit(boolean flipped, int[] slots, byte[] table) {
+    }
+
+    /**
+     * Works out one table
+     */
+    private final class Builder {
+        private final int count;
+        private final int[] pieces;
+        private final int[] kingSlot = new int[2];
+        private final int[] squares;
+        private final Exit[] exits;
+        private final Set<Material> children = new LinkedHashSet<>();
+
+        private final byte[] result;
+        private final byte[] remaining;
+        private final byte[] exitWorst;
+        private int sideToMove;
+        private long occupied;
+        private int last;
+
+        // what the moves out of the table offer the position being scored
+        private int bestExitWin;
+        private boolean drawExit;
+        private int worstExit;
+
+        Builder(Material material) {
+            this.count = material.pieceCount();
+            this.pieces = new int[count];
+            this.squares = new int[count];
+            for (int slot = 0; slot < count; slot++) {
+                pieces[slot] = material.piece(slot);
+                if (pieces[slot] % 6 == KING) {
+                    kingSlot[pieces[slot] / 6] = slot;
+                }
+            }
+            this.exits = new Exit[(count + 1) * (count + 1) * (PAWN + 1)];
+            this.result = new byte[material.fullSize()];
+            this.remaining = new byte[material.fullSize()];
+            this.exitWorst = new byte[material.fullSize()];
+        }
+
+        byte[] build() {
+            for (int index = 0; index < result.length; index++) {
+                score(index);
+            }
+            for (int plies = 0; plies <= last; plies++) {
+                for (int index = 0; index < result.length; index++) {
+                    byte value = result[index];
+                    if (value != 0 && value != Tablebase.STALEMATE && distance(value) == plies) {
+                        decode(index);
+                        retract(value < 0, plies);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private void decode(int index) {
+            sideToMove = index >>> (6 * count);
+            occupied = 0;
+            for (int slot = 0; slot < count; slot++) {
+                squares[slot] = (index >>> (6 * (count - 1 - slot))) & 63;
+                occupied |= bit(squares[slot]);
+            }
+        }
+
+        private int encode(int side) {
+            int index = side;
+            for (int slot = 0; slot < count; slot++) {
+                index = (index << 6) | squares[slot];
+            }
+            return index;
+        }
+
+        private boolean attacked(int square, int attacker, long occupied, int skipSlot) {
+            for (int slot = 0; slot < count; slot++) {
+                if (slot != skipSlot && pieces[slot] / 6 == attacker
+                        && (attacks(pieces[slot], squares[slot], occupied) & bit(square)) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int slotAt(int square) {
+            for (int slot = 0; slot < count; slot++) {
+                if (squares[slot] == square) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private long occupancy(int team) {
+            long pieces = 0;
+            for (int slot = 0; slot < count; slot++) {
+                if (this.pieces[slot] / 6 == team) {
+                    pieces |= bit(squares[slot]);
+                }
+            }
+            return pieces;
+        }
+
+        private boolean isValid() {
+            if (Long.bitCount(occupied) != count) {
+                return false;
+            }
+            for (int slot = 0; slot < count; slot++) {
+                int row = squares[slot] >>> 3;
+                if (pieces[slot] % 6 == PAWN && (row == 0 || row == 7)) {
+                    return false;
+                }
+            }
+            // the side that just moved can't have left its king in check
+            return !attacked(squares[kingSlot[1 - sideToMove]], sideToMove, occupied, -1);
+        }
+
+        /**
+         * Scores a position from its own moves: mate, stalemate, or what
+         * leaving the table by a capture or promotion gets it
+         */
+        private void score(int index) {
+            decode(index);
+            if (!isValid()) {
+                remaining[index] = (byte) INVALID;
+                return;
+            }
+            bestExitWin = Integer.MAX_VALUE;
+            drawExit = false;
+            worstExit = 0;
+            int inTable = 0;
+            int legal = 0;
+            long own = occupancy(sideToMove);
+            long enemy = occupied & ~own;
+            for (int slot = 0; slot < count; slot++) {
+                if (pieces[slot] / 6 != sideToMove) {
+                    continue;
+                }
+                int from = squares[slot];
+                long targets;
+                if (pieces[slot] % 6 == PAWN) {
+                    int forward = sideToMove == 0 ? 8 : -8;
+                    targets = Attacks.pawn(ChessGame.TeamColor.values()[sideToMove], from) & enemy;
+                    if ((occupied & bit(from + forward)) == 0) {
+                        targets |= bit(from + forward);
+                        int startRow = sideToMove == 0 ? 1 : 6;
+                        if ((from >>> 3) == startRow && (occupied & bit(from + 2 * forward)) == 0) {
+                            targets |= bit(from + 2 * forward);
+                        }
+                    }
+                } else {
+                    targets = attacks(pieces[slot], from, occupied) & ~own;
+                }
+                for (; targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    int captured = slotAt(to);
+                    if (!isLegal(slot, to, captured)) {
+                        continue;
+                    }
+                    legal++;
+                    boolean promotion = pieces[slot] % 6 == PAWN && ((to >>> 3) == 0 || (to >>> 3) == 7);
+                    if (promotion) {
+                        for (int type : PROMOTIONS) {
+                            exitMove(slot, to, captured, type);
+                        }
+                    } else if (captured >= 0) {
+                        exitMove(slot, to, captured, -1);
+                    } else {
+                        inTable++;
+                    }
+                }
+            }
+
+            if (legal == 0) {
+                boolean inCheck = attacked(squares[kingSlot[sideToMove]], 1 - sideToMove, occupied, -1);
+                result[index] = inCheck ? loss(0) : Tablebase.STALEMATE;
+                remaining[index] = (byte) CANNOT_LOSE;
+                return;
+            }
+            if (bestExitWin != Integer.MAX_VALUE) {
+                set(index, win(bestExitWin));
+            }
+            remaining[index] = (byte) (drawExit ? CANNOT_LOSE : inTable);
+            exitWorst[index] = (byte) worstExit;
+            if (inTable == 0 && !drawExit && bestExitWin == Integer.MAX_VALUE) {
+                set(index, loss(worstExit + 1));
+            }
+        }
+
+        private boolean isLegal(int slot, int to, int captured) {
+            int from = squares[slot];
+            long after = (occupied & ~bit(from)) | bit(to);
+            squares[slot] = to;
+            boolean legal = !attacked(squares[kingSlot[sideToMove]], 1 - sideToMove, after, captured);
+            squares[slot] = from;
+            return legal;
+        }
+
+        /**
+         * Looks up a capture or promotion in the smaller table it leads to
+         */
+        private void exitMove(int slot, int to, int captured, int promotion) {
+            Exit exit = exit(captured, promotion < 0 ? -1 : slot, promotion);
+            int childSide = exit.flipped() ? sideToMove : 1 - sideToMove;
+            int index = childSide;
+            for (int parent : exit.slots()) {
+                int square = parent == slot ? to : squares[parent];
+                index = (index << 6) | (exit.flipped() ? square ^ 56 : square);
+            }
+            byte value = exit.table()[index];
+            if (value < 0 && value != Tablebase.STALEMATE) {
+                bestExitWin = Math.min(bestExitWin, distance(value) + 1);
+            } else if (value > 0) {
+                worstExit = Math.max(worstExit, value);
+            } else {
+                drawExit = true;
+            }
+        }
+
+        private Exit exit(int captured, int promotedSlot, int promotion) {
+            int key = ((captured + 1) * (count + 1) + promotedSlot + 1) * (PAWN + 1) + promotion + 1;
+            if (exits[key] != null) {
+                return exits[key];
+            }
+            int[] after = pieces.clone();
+            if (promotedSlot >= 0) {
+                after[promotedSlot] = (after[promotedSlot] / 6) * 6 + promotion;
+            }
+            int[] counts = new int[12];
+            for (int slot = 0; slot < count; slot++) {
+                if (slot != captured) {
+                    counts[after[slot]]++;
+                }
+            }
+            Material child = Material.of(counts);
+            boolean flipped = child.needsFlip();
+            if (flipped) {
+                child = child.flipped();
+            }
+            int[] slots = new int[child.pieceCount()];
+            boolean[] used = new boolean[count];
+            for (int childSlot = 0; childSlot < slots.length; childSlot++) {
+                int wanted = flipped ? Material.flip(child.piece(childSlot)) : child.piece(childSlot);
+                for (int slot = 0; slot < count; slot++) {
+                    if (slot != captured && !used[slot] && after[slot] == wanted) {
+                        used[slot] = true;
+                        slots[childSlot] = slot;
+                        break;
+                    }
+                }
+            }
+            children.add(child);
+            exits[key] = new Exit(flipped, slots, full(child));
+            return exits[key];
+        }
+
+        /**
+         * Carries a result back to every position one move earlier: a loss
+         * makes them won, and the last of their moves to turn out won for
+         * the opponent makes them lost
+         */
+        private void retract(boolean lost, int plies) {
+            int mover = 1 - sideToMove;
+            for (int slot = 0; slot < count; slot++) {
+                if (pieces[slot] / 6 != mover) {
+                    continue;
+                }
+                int to = squares[slot];
+                long origins;
+                if (pieces[slot] % 6 == PAWN) {
+                    origins = pawnOrigins(mover, to);
+                } else {
+                    origins = attacks(pieces[slot], to, occupied) & ~occupied;
+                }
+                for (; origins != 0; origins &= origins - 1) {
+                    squares[slot] = Long.numberOfTrailingZeros(origins);
+                    int earlier = encode(mover);
+                    squares[slot] = to;
+                    int state = remaining[earlier] & 0xFF;
+                    if (state == INVALID) {
+                        continue;
+                    }
+                    byte value = result[earlier];
+                    if (lost) {
+                        if (value == 0 || (value > 0 && value > plies + 1)) {
+                            set(earlier, win(plies + 1));
+                        }
+                    } else if (value == 0 && state < INVALID) {
+                        remaining[earlier] = (byte) --state;
+                        if (state == 0) {
+                            set(earlier, loss(Math.max(plies, exitWorst[earlier]) + 1));
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the squares a pawn now on the square could have been
+         * pushed from
+         */
+        private long pawnOrigins(int team, int square) {
+            int back = team == 0 ? -8 : 8;
+            int row = square >>> 3;
+            int homeRow = team == 0 ? 1 : 6;
+            long origins = 0;
+            if (row != homeRow && (occupied & bit(square + back)) == 0) {
+                origins |= bit(square + back);
+                if (row == homeRow - back / 4 && (occupied & bit(square + 2 * back)) == 0) {
+                    origins |= bit(square + 2 * back);
+                }
+            }
+            return origins;
+        }
+
+        private void set(int index, byte value) {
+            result[index] = value;
+            last = Math.max(last, distance(value));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TablebaseGenerator directory [KQvK KRvK ...]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args[0]);
+        String[] materials = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : THREE_PIECES;
+        TablebaseGenerator generator = new TablebaseGenerator();
+        Set<Path> written = new HashSet<>();
+        for (String material : materials) {
+            long start = System.nanoTime();
+            written.addAll(generator.generate(material, directory));
+            System.out.printf("%s: %d ms%n", material, (System.nanoTime() - start) / 1_000_000);
+        }
+        System.out.printf("%d tables in %s%n", written.size(), directory);
+    }
+}
@@ -0,0 +1,131 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitBoardTests {
+
+    @Test
+    void roundTripStartingBoard() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        BitBoard bits = BitBoard.fromArray(new ChessBoard(board).getBitBoard().toArray());
+        assertEquals(board, new ChessBoard(bits), "Board should survive conversion to bitboards and back");
+        assertEquals(32, Long.bitCount(bits.occupied()), "Starting board should have 32 pieces");
+        assertEquals(0xFFFFL, bits.occupancy(ChessGame.TeamColor.WHITE), "White should fill rows 1 and 2");
+    }
+
+    @Test
+    void staysInStepWithAddPiece() {
+        ChessBoard board = new ChessBoard();
+        BitBoard bits = board.getBitBoard();
+        ChessPosition e4 = new ChessPosition(4, 5);
+        board.addPiece(e4, new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        assertEquals(1L << 28, bits.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+
+        board.addPiece(e4, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        assertEquals(0L, bits.pieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT),
+                "Replaced piece should be cleared");
+        assertEquals(BitBoard.pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN), bits.pieceAt(28));
+
+        board.addPiece(e4, null);
+        assertEquals(0L, bits.occupied(), "Removing the piece should empty the board");
+        assertEquals(BitBoard.NO_PIECE, bits.pieceAt(28));
+    }
+
+    @Test
+    void squareAttackedMatchesAttackMap() {
+        for (Perft.Reference reference : Perft.REFERENCES) {
+            BitBoard bits = Fen.parse(reference.fen()).getBoard().getBitBoard();
+            for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+                long attacked = Attacks.attackedBy(bits, team, bits.occupied());
+                for (int square = 0; square < 64; square++) {
+                    assertEquals((attacked & (1L << square)) != 0, bits.isSquareAttacked(square, team),
+                            reference.name() + " square " + square + " attacked by " + team);
+                }
+            }
+        }
+    }
+
+    @Test
+    void squareAttackedThroughBoardPositions() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        assertTrue(board.isSquareAttacked(new ChessPosition(3, 1), ChessGame.TeamColor.WHITE), "a3 covered by b2 and Nb1");
+        assertFalse(board.isSquareAttacked(new ChessPosition(4, 1), ChessGame.TeamColor.WHITE));
+        assertTrue(board.isSquareAttacked(new ChessPosition(6, 8), ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void sharedPositionsAndPieces() {
+        assertSame(ChessPosition.of(4, 5), ChessPosition.of(4, 5));
+        assertEquals(new ChessPosition(4, 5), ChessPosition.of(4, 5));
+        assertEquals(new ChessPosition(4, 5).hashCode(), ChessPosition.of(4, 5).hashCode());
+        assertEquals(new ChessPosition(0, 9), ChessPosition.of(0, 9), "Off-board positions still work");
+
+        ChessPiece queen = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
+        assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN), queen);
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        assertSame(queen, new ChessBoard(board).getPiece(new ChessPosition(8, 4)), "Copies should share pieces");
+    }
+
+    @Test
+    void magicAttacksMatchRayWalk() {
+        java.util.Random random = new java.util.Random(11);
+        for (int i = 0; i < 2000; i++) {
+            long occupied = random.nextLong() & random.nextLong();
+            for (int square = 0; square < 64; square++) {
+                assertEquals(Attacks.slowRook(square, occupied), Attacks.rook(square, occupied), "rook on " + square);
+                assertEquals(Attacks.slowBishop(square, occupied), Attacks.bishop(square, occupied), "bishop on " + square);
+            }
+        }
+    }
+
+    @Test
+    void kingAndPiecePositionsFollowMoves() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = game.getBoard();
+        assertEquals(new ChessPosition(1, 5), board.getKingPosition(ChessGame.TeamColor.WHITE));
+        assertEquals(16, board.getPiecePositions(ChessGame.TeamColor.BLACK).size());
+        assertEquals(java.util.List.of(new ChessPosition(1, 2), new ChessPosition(1, 7)),
+                board.getPiecePositions(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT));
+
+        board.addPiece(new ChessPosition(1, 5), null);
+        board.addPiece(new ChessPosition(3, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        assertEquals(new ChessPosition(3, 4), board.getKingPosition(ChessGame.TeamColor.WHITE));
+        board.addPiece(new ChessPosition(3, 4), null);
+        assertNull(board.getKingPosition(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void placementTotalsStayInStepWithMoves() {
+        java.util.Random random = new java.util.Random(19);
+        ChessGame game = Fen.parse(Perft.REFERENCES.get(1).fen());
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 200; ply++) {
+            moves.clear();
+            game.generateLegalMoves(moves);
+            if (moves.size() == 0) {
+                break;
+            }
+            game.makeMove(moves.get(random.nextInt(moves.size())), new MoveUndo());
+            BitBoard bits = game.getBoard().getBitBoard();
+            BitBoard fresh = BitBoard.fromArray(bits.toArray());
+            assertEquals(fresh.middlegameScore(), bits.middlegameScore(), "Middlegame total after ply " + ply);
+            assertEquals(fresh.endgameScore(), bits.endgameScore(), "Endgame total after ply " + ply);
+            assertEquals(fresh.phase(), bits.phase(), "Phase after ply " + ply);
+        }
+    }
+
+    @Test
+    void startingPlacementIsBalanced() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        BitBoard bits = board.getBitBoard();
+        assertEquals(0, bits.middlegameScore());
+        assertEquals(0, bits.endgameScore());
+        assertEquals(PieceSquareTables.PHASE_TOTAL, bits.phase());
+    }
+}
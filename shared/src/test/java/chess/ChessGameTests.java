@@ -0,0 +1,204 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChessGameTests {
+
+    @Test
+    void unmakeRestoresCapture() {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(4, 4), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(new ChessPosition(4, 8), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        game.setBoard(board);
+        ChessBoard before = new ChessBoard(board);
+
+        MoveUndo undo = new MoveUndo();
+        game.makeMove(new ChessMove(new ChessPosition(4, 4), new ChessPosition(4, 8), null), undo);
+        assertEquals(ChessPiece.PieceType.KNIGHT, undo.getCapturedPiece().getPieceType());
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn(), "Turn should pass to black");
+
+        game.unmakeMove(undo);
+        assertEquals(before, game.getBoard(), "Board should be restored after unmake");
+        assertEquals(before.getBitBoard(), game.getBoard().getBitBoard(), "Bitboards should be restored after unmake");
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn(), "Turn should be restored after unmake");
+    }
+
+    @Test
+    void unmakeRestoresPromotion() {
+        ChessGame game = new ChessGame();
+        ChessBoard before = new ChessBoard(game.getBoard());
+        game.getBoard().addPiece(new ChessPosition(7, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        ChessBoard withPawn = new ChessBoard(game.getBoard());
+
+        MoveUndo undo = new MoveUndo();
+        game.makeMove(new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2), ChessPiece.PieceType.QUEEN), undo);
+        assertEquals(ChessPiece.PieceType.QUEEN, game.getBoard().getPiece(new ChessPosition(8, 2)).getPieceType());
+
+        game.unmakeMove(undo);
+        assertEquals(withPawn, game.getBoard(), "Pawn and captured knight should be back");
+        assertNotEquals(before, game.getBoard());
+    }
+
+    @Test
+    void zobristKeyMatchesTransposition() throws InvalidMoveException {
+        ChessGame first = new ChessGame();
+        first.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        first.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        first.makeMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+
+        ChessGame second = new ChessGame();
+        second.makeMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+        second.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        second.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+
+        assertEquals(first.getZobristKey(), second.getZobristKey(), "Same position should have the same key");
+        assertEquals(first.getBoard().hashCode(), second.getBoard().hashCode());
+        assertNotEquals(new ChessGame().getZobristKey(), first.getZobristKey());
+
+        long before = first.getZobristKey();
+        first.setTeamTurn(ChessGame.TeamColor.WHITE);
+        assertNotEquals(before, first.getZobristKey(), "Side to move should change the key");
+    }
+
+    @Test
+    void zobristKeyRestoredByUnmake() {
+        ChessGame game = new ChessGame();
+        long before = game.getZobristKey();
+        MoveUndo undo = new MoveUndo();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null), undo);
+        assertNotEquals(before, game.getZobristKey());
+        game.unmakeMove(undo);
+        assertEquals(before, game.getZobristKey());
+        assertEquals(before, new ChessGame().getZobristKey(), "Key should not depend on how the board was built");
+    }
+
+    @Test
+    void unmakeRestoresCastlingAndEnPassant() {
+        ChessGame game = Fen.parse("r3k2r/8/8/8/3p4/8/4P3/R3K2R w KQkq - 0 1");
+        ChessBoard before = new ChessBoard(game.getBoard());
+        long key = game.getZobristKey();
+
+        MoveUndo castle = new MoveUndo();
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(1, 7), null), castle);
+        assertEquals(ChessPiece.PieceType.ROOK, game.getBoard().getPiece(new ChessPosition(1, 6)).getPieceType());
+        assertEquals(Castling.BLACK_KINGSIDE | Castling.BLACK_QUEENSIDE, game.getCastlingRights());
+        game.unmakeMove(castle);
+        assertEquals(before, game.getBoard());
+        assertEquals(key, game.getZobristKey(), "Castling rights should be restored");
+
+        MoveUndo push = new MoveUndo();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null), push);
+        assertEquals(new ChessPosition(3, 5), game.getEnPassantPosition());
+        MoveUndo capture = new MoveUndo();
+        game.makeMove(new ChessMove(new ChessPosition(4, 4), new ChessPosition(3, 5), null), capture);
+        assertNull(game.getBoard().getPiece(new ChessPosition(4, 5)), "Pawn taken en passant should be gone");
+        game.unmakeMove(capture);
+        game.unmakeMove(push);
+        assertEquals(before, game.getBoard());
+        assertEquals(key, game.getZobristKey());
+    }
+
+    @Test
+    void unusableEnPassantDoesNotChangeKey() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertNull(game.getEnPassantPosition(), "No black pawn can capture, so there is no en passant square");
+        assertEquals(Fen.parse("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1").getZobristKey(),
+                game.getZobristKey());
+    }
+
+    @Test
+    void threefoldRepetitionAndFiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessMove[] shuffle = {
+                new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null),
+                new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null),
+                new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null),
+                new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null)
+        };
+        for (int round = 1; round <= 2; round++) {
+            for (ChessMove move : shuffle) {
+                assertFalse(game.isThreefoldRepetition());
+                game.makeMove(move);
+            }
+            assertEquals(round + 1, game.getRepetitionCount());
+        }
+        assertTrue(game.isThreefoldRepetition());
+        assertEquals(8, game.getHalfmoveClock());
+        assertEquals(5, game.getFullmoveNumber());
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertEquals(0, game.getHalfmoveClock(), "Pawn moves reset the clock");
+        assertEquals(1, game.getRepetitionCount());
+        assertFalse(game.isFiftyMoveDraw());
+        assertTrue(Fen.parse("8/8/4k3/8/8/4K3/8/7R w - - 100 80").isFiftyMoveDraw());
+    }
+
+    @Test
+    void snapshotIsUnaffectedByLaterMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        BoardSnapshot snapshot = game.snapshot();
+        assertSame(snapshot, game.snapshot(), "Snapshot should be reused until the position changes");
+
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        assertNotSame(snapshot, game.snapshot());
+        assertEquals(ChessGame.TeamColor.BLACK, snapshot.getTeamTurn());
+        assertNotNull(snapshot.getPiece(new ChessPosition(7, 4)), "Snapshot should keep the old position");
+
+        ChessGame copy = game.snapshot().toGame();
+        assertEquals(game.getBoard(), copy.getBoard());
+        assertEquals(game.getZobristKey(), copy.getZobristKey());
+        assertEquals(game.snapshot(), copy.snapshot());
+
+        game.getBoard().addPiece(new ChessPosition(1, 1), null);
+        assertNull(game.snapshot().getPiece(new ChessPosition(1, 1)), "Board edits should not leave a stale snapshot");
+    }
+
+    @Test
+    void moveHistoryFollowsMakeAndUnmake() throws InvalidMoveException {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/4P3/4K3 w - - 0 7");
+        MoveUndo undo = new MoveUndo();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 5), new ChessPosition(7, 5), null), undo);
+        int[] history = game.getMoveHistory();
+        assertEquals(2, history.length);
+        assertEquals(BitBoard.square(2, 5), Move.from(history[0]));
+        assertEquals(BitBoard.square(7, 5), Move.to(history[1]));
+        assertArrayEquals(history, new ChessGame(game).getMoveHistory());
+
+        game.unmakeMove(undo);
+        assertEquals(1, game.getMoveHistory().length);
+        assertEquals("4k3/8/8/8/8/8/4P3/4K3 w - - 0 7", game.getStartFen());
+        assertEquals(Fen.START, new ChessGame().getStartFen());
+    }
+
+    @Test
+    void gsonKeepsOnlyTheMovesPlayed() throws InvalidMoveException {
+        Gson gson = new Gson();
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/4K1N1 w - - 0 1");
+        int[][] shuffle = {{1, 7, 3, 6}, {8, 5, 8, 4}, {3, 6, 1, 7}, {8, 4, 8, 5}};
+        for (int[] move : shuffle) {
+            game.makeMove(new ChessMove(new ChessPosition(move[0], move[1]), new ChessPosition(move[2], move[3]), null));
+        }
+        assertEquals(2, game.getRepetitionCount());
+
+        String json = gson.toJson(game);
+        assertFalse(json.contains("keys"), json);
+        ChessGame stored = gson.fromJson(json, ChessGame.class);
+        assertEquals(4, stored.getMoveHistory().length);
+        assertArrayEquals(game.getMoveHistory(), stored.getMoveHistory());
+        assertEquals("4k3/8/8/8/8/8/8/4K1N1 w - - 0 1", stored.getStartFen());
+        assertEquals(2, stored.getRepetitionCount(), "Keys should be rebuilt from the moves");
+
+        ChessGame fresh = gson.fromJson(gson.toJson(new ChessGame()), ChessGame.class);
+        assertEquals(0, fresh.getMoveHistory().length);
+        assertEquals(Fen.START, fresh.getStartFen());
+    }
+}
@@ -0,0 +1,91 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FenTests {
+
+    @Test
+    void startingPosition() {
+        ChessGame game = Fen.parse(Fen.START);
+        assertEquals(new ChessGame().getBoard(), game.getBoard());
+        assertEquals(new ChessGame().getZobristKey(), game.getZobristKey());
+        assertEquals(Fen.START, Fen.write(new ChessGame()));
+    }
+
+    @Test
+    void roundTripsReferencePositions() {
+        for (Perft.Reference reference : Perft.REFERENCES) {
+            ChessGame game = Fen.parse(reference.fen());
+            assertEquals(reference.fen(), Fen.write(game), reference.name());
+            assertEquals(game.getZobristKey(), Fen.parse(Fen.write(game)).getZobristKey());
+        }
+    }
+
+    @Test
+    void roundTripsAfterMoves() {
+        ChessGame game = new ChessGame();
+        MoveList moves = new MoveList();
+        java.util.Random random = new java.util.Random(21);
+        for (int ply = 0; ply < 80; ply++) {
+            moves.clear();
+            game.generateLegalMoves(moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            game.makeMove(moves.get(random.nextInt(moves.size())), new MoveUndo());
+            String fen = Fen.write(game);
+            ChessGame copy = Fen.parse(fen);
+            assertEquals(fen, Fen.write(copy));
+            assertEquals(game.getBoard(), copy.getBoard());
+            assertEquals(game.getZobristKey(), copy.getZobristKey(), fen);
+            assertEquals(game.getHalfmoveClock(), copy.getHalfmoveClock());
+            assertEquals(game.getFullmoveNumber(), copy.getFullmoveNumber());
+        }
+    }
+
+    @Test
+    void readsEveryField() {
+        ChessGame game = Fen.parse("4k3/8/8/3pP3/8/8/8/4K2R w K d6 3 41");
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        assertEquals(Castling.WHITE_KINGSIDE, game.getCastlingRights());
+        assertEquals(new ChessPosition(6, 4), game.getEnPassantPosition());
+        assertEquals(3, game.getHalfmoveClock());
+        assertEquals(41, game.getFullmoveNumber());
+    }
+
+    @Test
+    void missingFieldsTakeDefaults() {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/4K3 b");
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals(Castling.NONE, game.getCastlingRights());
+        assertEquals("4k3/8/8/8/8/8/8/4K3 b - - 0 1", Fen.write(game));
+        assertEquals("4k3/8/8/8/8/8/8/4K3", Fen.write(Fen.parseBoard("4k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+    }
+
+    @Test
+    void dropsUnusableEnPassantSquare() {
+        // no white pawn stands beside d5, so the square can't be used
+        assertEquals("4k3/8/8/3p4/8/8/8/4K3 w - - 0 2", Fen.write(Fen.parse("4k3/8/8/3p4/8/8/8/4K3 w - d6 0 2")));
+    }
+
+    @Test
+    void rejectsMalformedRecords() {
+        String[] bad = {
+                "",
+                "8/8/8/8/8/8/8 w - - 0 1",
+                "9/8/8/8/8/8/8/8 w - - 0 1",
+                "ppppppppp/8/8/8/8/8/8/8 w - - 0 1",
+                "x7/8/8/8/8/8/8/8 w - - 0 1",
+                "8/8/8/8/8/8/8/8 x - - 0 1",
+                "8/8/8/8/8/8/8/8 w KX - 0 1",
+                "8/8/8/8/8/8/8/8 w - e4 0 1",
+                "8/8/8/8/8/8/8/8 w - - a 1",
+                "8/8/8/8/8/8/8/8 w - - 0 1 extra"
+        };
+        for (String fen : bad) {
+            assertThrows(IllegalArgumentException.class, () -> Fen.parse(fen), fen);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package chess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegalMoveCacheTests {
+
+    @AfterEach
+    void turnOffCache() {
+        ChessGame.useMoveCache(null);
+    }
+
+    @Test
+    void repeatedPositionHitsCache() throws InvalidMoveException {
+        LegalMoveCache cache = new LegalMoveCache(1024);
+        ChessGame.useMoveCache(cache);
+        ChessPosition e2 = new ChessPosition(2, 5);
+
+        ChessGame first = new ChessGame();
+        var uncached = new HashSet<>(first.validMoves(e2));
+        first.makeMove(new ChessMove(e2, new ChessPosition(4, 5), null));
+        assertEquals(1, cache.stats().misses(), "makeMove should reuse the entry validMoves filled");
+        assertEquals(1, cache.stats().hits());
+
+        ChessGame second = new ChessGame();
+        assertEquals(uncached, new HashSet<>(second.validMoves(e2)), "Cached moves should match generated ones");
+        assertEquals(2, cache.stats().hits());
+
+        second.validMoves(e2).clear();
+        assertEquals(uncached, new HashSet<>(second.validMoves(e2)), "Callers should not be able to change cached moves");
+    }
+
+    @Test
+    void sideIsPartOfKey() {
+        ChessGame.useMoveCache(new LegalMoveCache(1024));
+        ChessGame game = new ChessGame();
+        game.validMoves(new ChessPosition(2, 5));
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertEquals(2, game.validMoves(new ChessPosition(7, 5)).size());
+        assertEquals(0, ChessGame.getMoveCache().stats().hits());
+    }
+
+    @Test
+    void evictsPastCapacity() {
+        LegalMoveCache cache = new LegalMoveCache(32);
+        for (int i = 0; i < 100; i++) {
+            cache.put(LegalMoveCache.key(i * 0x1234567L, i % 64), new int[0]);
+        }
+        LegalMoveCache.Stats stats = cache.stats();
+        assertTrue(stats.size() <= 32, "Cache should stay within capacity");
+        assertEquals(100 - stats.size(), stats.evictions());
+    }
+}
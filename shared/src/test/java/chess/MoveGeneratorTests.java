@@ -0,0 +1,149 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveGeneratorTests {
+
+    /**
+     * Legal moves the slow way: every pseudo-legal move that does not leave
+     * the mover's king in check. pieceMoves knows nothing of castling or en
+     * passant, so those are left to the perft and extra credit tests.
+     */
+    private static Set<ChessMove> referenceMoves(ChessGame game, ChessPosition position) {
+        ChessPiece piece = game.getBoard().getPiece(position);
+        Set<ChessMove> legal = new HashSet<>();
+        MoveUndo undo = new MoveUndo();
+        for (ChessMove move : piece.pieceMoves(game.getBoard(), position)) {
+            game.makeMove(move, undo);
+            if (!game.isInCheck(piece.getTeamColor())) {
+                legal.add(move);
+            }
+            game.unmakeMove(undo);
+        }
+        return legal;
+    }
+
+    private static boolean isCastleOrEnPassant(ChessGame game, ChessMove move) {
+        ChessPiece piece = game.getBoard().getPiece(move.getStartPosition());
+        int columns = Math.abs(move.getEndPosition().getColumn() - move.getStartPosition().getColumn());
+        return (piece.getPieceType() == ChessPiece.PieceType.KING && columns == 2)
+                || (piece.getPieceType() == ChessPiece.PieceType.PAWN && columns == 1
+                && game.getBoard().getPiece(move.getEndPosition()) == null);
+    }
+
+    @Test
+    void matchesGenerateThenTestOnRandomGames() {
+        Random random = new Random(240);
+        for (int gameNumber = 0; gameNumber < 40; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 120; ply++) {
+                List<ChessMove> moves = new ArrayList<>();
+                for (int row = 1; row <= 8; row++) {
+                    for (int col = 1; col <= 8; col++) {
+                        ChessPosition position = new ChessPosition(row, col);
+                        ChessPiece piece = game.getBoard().getPiece(position);
+                        if (piece == null) {
+                            continue;
+                        }
+                        Set<ChessMove> generated = new HashSet<>(game.validMoves(position));
+                        Set<ChessMove> ordinary = new HashSet<>(generated);
+                        ordinary.removeIf(move -> isCastleOrEnPassant(game, move));
+                        assertEquals(referenceMoves(game, position), ordinary,
+                                "Moves differ for " + piece.getPieceType() + " at " + row + "," + col);
+                        if (piece.getTeamColor() == game.getTeamTurn()) {
+                            moves.addAll(generated);
+                        }
+                    }
+                }
+                boolean inCheck = game.isInCheck(game.getTeamTurn());
+                assertEquals(moves.isEmpty() && inCheck, game.isInCheckmate(game.getTeamTurn()));
+                assertEquals(moves.isEmpty() && !inCheck, game.isInStalemate(game.getTeamTurn()));
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())), new MoveUndo());
+            }
+        }
+    }
+
+    @Test
+    void pinnedPieceStaysOnLine() {
+        ChessGame game = Fen.parse("4k3/8/8/8/4r3/8/4R3/4K3 w - - 0 1");
+        Set<ChessMove> moves = new HashSet<>(game.validMoves(new ChessPosition(2, 5)));
+        assertEquals(Set.of(
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(3, 5), null),
+                new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)), moves);
+    }
+
+    @Test
+    void doubleCheckAllowsOnlyKingMoves() {
+        ChessGame game = Fen.parse("4k3/8/8/8/1b6/8/3N4/r3K3 w - - 0 1");
+        assertTrue(game.validMoves(new ChessPosition(2, 4)).isEmpty(), "Knight cannot answer a double check");
+        assertFalse(game.validMoves(new ChessPosition(1, 5)).isEmpty());
+    }
+
+    @Test
+    void encodedMovesRoundTrip() {
+        ChessMove promotion = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2), ChessPiece.PieceType.KNIGHT);
+        int encoded = Move.encode(48, 57, ChessPiece.PieceType.KNIGHT, Move.CAPTURE);
+        assertEquals(promotion, Move.toChessMove(encoded));
+        assertTrue(Move.sameMove(encoded, Move.of(promotion)), "Flags should not affect move identity");
+        assertTrue(Move.isCapture(encoded));
+        assertEquals("a7b8n", Move.toString(encoded));
+        assertNotEquals(Move.NONE, Move.encode(0, 8, 0));
+    }
+
+    @Test
+    void moveListGrowsAndReuses() {
+        MoveList list = new MoveList(2);
+        ChessGame game = new ChessGame();
+        game.generateLegalMoves(list);
+        assertEquals(20, list.size());
+        assertTrue(list.indexOf(Move.of(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null))) >= 0);
+        list.clear();
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    void noisyAndQuietMovesSplitTheLegalMoves() {
+        for (Perft.Reference reference : Perft.REFERENCES) {
+            ChessGame game = Fen.parse(reference.fen());
+            MoveList all = new MoveList();
+            MoveList noisy = new MoveList();
+            MoveList quiet = new MoveList();
+            game.generateLegalMoves(all);
+            game.generateNoisyMoves(noisy);
+            game.generateQuietMoves(quiet);
+            assertEquals(all.size(), noisy.size() + quiet.size(), reference.name());
+            for (int i = 0; i < noisy.size(); i++) {
+                int move = noisy.get(i);
+                assertTrue(Move.isCapture(move) || Move.isPromotion(move), Move.toString(move));
+                assertTrue(all.indexOf(move) >= 0);
+            }
+            for (int i = 0; i < quiet.size(); i++) {
+                int move = quiet.get(i);
+                assertFalse(Move.isCapture(move) || Move.isPromotion(move), Move.toString(move));
+                assertTrue(all.indexOf(move) >= 0);
+            }
+        }
+    }
+
+    @Test
+    void legalMoveChecksRememberedMoves() {
+        ChessGame game = new ChessGame();
+        int push = Move.encode(BitBoard.square(2, 5), BitBoard.square(4, 5), 0);
+        assertEquals(Move.encode(BitBoard.square(2, 5), BitBoard.square(4, 5), Move.DOUBLE_PUSH), game.legalMove(push),
+                "The move should come back with this position's flags");
+        assertEquals(Move.NONE, game.legalMove(Move.encode(BitBoard.square(2, 5), BitBoard.square(5, 5), 0)));
+        assertEquals(Move.NONE, game.legalMove(Move.encode(BitBoard.square(4, 4), BitBoard.square(5, 4), 0)));
+        assertEquals(Move.NONE, game.legalMove(Move.NONE));
+    }
+}
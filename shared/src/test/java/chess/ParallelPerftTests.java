@@ -0,0 +1,62 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelPerftTests {
+
+    @Test
+    void matchesReferenceCounts() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Perft.Reference reference : Perft.REFERENCES) {
+                ChessGame game = Fen.parse(reference.fen());
+                long key = game.getZobristKey();
+                // depth 4 is deep enough to fork a second ply of tasks
+                int depth = Math.min(4, reference.maxDepth());
+                assertEquals(reference.nodes(depth), ParallelPerft.perft(game, depth, pool), reference.name());
+                assertEquals(key, game.getZobristKey(), "Parallel perft should leave the game unchanged");
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void divideMatchesSequential() {
+        ChessGame game = Fen.parse(Perft.REFERENCES.get(1).fen());
+        assertEquals(Perft.divide(game, 3), ParallelPerft.divide(game, 3, ForkJoinPool.commonPool()));
+        assertEquals(Perft.divide(game, 1), ParallelPerft.divide(game, 1, ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void analyzesPositionsInOrder() {
+        List<PositionAnalysis> results = PositionAnalysis.analyzeAll(Stream.of(
+                Fen.START,
+                "R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1",
+                "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1",
+                "4k3/8/8/8/8/8/8/4R1K1 b - - 0 1"
+        ).map(Fen::parse));
+
+        assertEquals(new PositionAnalysis(20, false, false, false), results.get(0));
+        assertEquals(new PositionAnalysis(0, true, true, false), results.get(1));
+        assertEquals(new PositionAnalysis(0, false, false, true), results.get(2));
+        assertTrue(results.get(3).check());
+        assertEquals(4, results.get(3).legalMoves());
+    }
+
+    @Test
+    void analyzesManyPositions() {
+        List<ChessGame> games = Stream.generate(() -> Fen.parse(Perft.REFERENCES.get(1).fen()))
+                .limit(500)
+                .toList();
+        List<PositionAnalysis> results = PositionAnalysis.analyzeAll(games.stream());
+        assertEquals(500, results.size());
+        assertTrue(results.stream().allMatch(r -> r.legalMoves() == 48));
+    }
+}
@@ -0,0 +1,59 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTests {
+
+    private static void assertPerft(String name, int depth) {
+        Perft.Reference reference = Perft.REFERENCES.stream()
+                .filter(r -> r.name().equals(name))
+                .findFirst()
+                .orElseThrow();
+        ChessGame game = Fen.parse(reference.fen());
+        ChessBoard before = new ChessBoard(game.getBoard());
+        long key = game.getZobristKey();
+        assertEquals(reference.nodes(depth), Perft.perft(game, depth), name + " perft(" + depth + ")");
+        assertEquals(before, game.getBoard(), "Perft should leave the position unchanged");
+        assertEquals(key, game.getZobristKey(), "Perft should leave the game state unchanged");
+    }
+
+    @Test
+    void startPosition() {
+        assertPerft("start", 3);
+    }
+
+    @Test
+    void kiwipete() {
+        assertPerft("kiwipete", 3);
+    }
+
+    @Test
+    void position3() {
+        assertPerft("position3", 4);
+    }
+
+    @Test
+    void position4() {
+        assertPerft("position4", 3);
+    }
+
+    @Test
+    void position5() {
+        assertPerft("position5", 3);
+    }
+
+    @Test
+    void position6() {
+        assertPerft("position6", 3);
+    }
+
+    @Test
+    void divideSumsToPerft() {
+        ChessGame game = Fen.parse(Fen.START);
+        long total = Perft.divide(game, 2).values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(20, Perft.divide(game, 2).size(), "Start position has 20 root moves");
+        assertEquals(400, total);
+    }
+}
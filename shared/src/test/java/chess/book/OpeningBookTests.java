@@ -0,0 +1,141 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveUndo;
+import chess.pgn.PgnReader;
+import chess.pgn.San;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTests {
+
+    private static final String GAMES = """
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 1-0
+
+            [Result "0-1"]
+
+            1. e4 c5 0-1
+
+            [Result "1/2-1/2"]
+
+            1. d4 d5 1/2-1/2
+            """;
+
+    @TempDir
+    Path directory;
+
+    private OpeningBook build(int plies) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies);
+        try (PgnReader reader = new PgnReader(Channels.newChannel(
+                new ByteArrayInputStream(GAMES.getBytes(StandardCharsets.UTF_8))))) {
+            assertEquals(3, builder.addPgn(reader));
+        }
+        Path file = directory.resolve("book.bin");
+        builder.write(file);
+        return OpeningBook.open(file);
+    }
+
+    private static ChessGame play(String... moves) {
+        ChessGame game = new ChessGame();
+        MoveUndo undo = new MoveUndo();
+        for (String move : moves) {
+            game.makeMove(San.parse(game, move), undo);
+        }
+        return game;
+    }
+
+    @Test
+    void weighsMovesByResult() throws IOException {
+        OpeningBook book = build(OpeningBookBuilder.DEFAULT_PLIES);
+        ChessGame start = new ChessGame();
+        List<OpeningBook.BookMove> moves = book.moves(start);
+        assertEquals(2, moves.size());
+        assertEquals("e4", San.toString(start, moves.get(0).move()));
+        assertEquals(2, moves.get(0).weight(), "A win should count twice");
+        assertEquals("d4", San.toString(start, moves.get(1).move()));
+        assertEquals(1, moves.get(1).weight());
+
+        ChessGame afterE4 = play("e4");
+        assertEquals(List.of(new OpeningBook.BookMove(San.parse(afterE4, "c5"), 2)), book.moves(afterE4),
+                "A move only the loser played should be left out");
+        assertTrue((book.bestMove(afterE4) & Move.DOUBLE_PUSH) != 0, "Probed moves should get their flags back");
+        assertEquals(San.parse(play("e4", "e5"), "Nf3"), book.bestMove(play("e4", "e5")));
+    }
+
+    @Test
+    void missingPositionsAndPlyLimit() throws IOException {
+        OpeningBook book = build(2);
+        assertEquals(Move.NONE, book.bestMove(play("e4", "e5")), "Only the first two plies should be kept");
+        assertTrue(book.moves(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1")).isEmpty());
+        assertEquals(Move.NONE, book.pickMove(play("a3"), new Random(1)));
+        assertEquals(4, book.size());
+    }
+
+    @Test
+    void picksMovesInProportionToWeight() throws IOException {
+        OpeningBook book = build(OpeningBookBuilder.DEFAULT_PLIES);
+        ChessGame start = new ChessGame();
+        int e4 = San.parse(start, "e4");
+        Random random = new Random(42);
+        int picked = 0;
+        for (int i = 0; i < 3000; i++) {
+            if (book.pickMove(start, random) == e4) {
+                picked++;
+            }
+        }
+        assertTrue(picked > 1800 && picked < 2200, "e4 should be picked about two times in three, was " + picked);
+    }
+
+    @Test
+    void skipsMalformedGames() throws IOException {
+        String games = """
+                [Result "1-0"]
+
+                1. e4 e5 2. Ke3 Nf6 1-0
+
+                [FEN "not a position"]
+                [Result "0-1"]
+
+                1. e4 0-1
+
+                [Result "1/2-1/2"]
+
+                1. d4 d5 1/2-1/2
+                """;
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        try (PgnReader reader = new PgnReader(Channels.newChannel(
+                new ByteArrayInputStream(games.getBytes(StandardCharsets.UTF_8))))) {
+            assertEquals(1, builder.addPgn(reader));
+        }
+        assertEquals(1, builder.gamesAdded());
+        assertEquals(2, builder.gamesSkipped());
+
+        Path file = directory.resolve("book.bin");
+        builder.write(file);
+        ChessGame start = new ChessGame();
+        assertEquals(San.parse(start, "d4"), OpeningBook.open(file).bestMove(start),
+                "Only the well-formed game should be in the book");
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = directory.resolve("not-a-book.bin");
+        Files.write(file, new byte[32]);
+        assertThrows(IOException.class, () -> OpeningBook.open(file));
+    }
+}
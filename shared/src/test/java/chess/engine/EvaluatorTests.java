@@ -0,0 +1,72 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Perft;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluatorTests {
+
+    /**
+     * Mirrors a FEN position top to bottom and swaps the colors, which
+     * should not change the evaluation for the side to move
+     */
+    private static String flip(String fen) {
+        String[] fields = fen.split(" ");
+        String[] rows = fields[0].split("/");
+        StringBuilder placement = new StringBuilder();
+        for (int i = rows.length - 1; i >= 0; i--) {
+            for (char c : rows[i].toCharArray()) {
+                placement.append(Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+            }
+            if (i > 0) {
+                placement.append('/');
+            }
+        }
+        String side = fields[1].equals("w") ? "b" : "w";
+        return placement + " " + side + " - - 0 1";
+    }
+
+    @Test
+    void startingPositionIsEven() {
+        assertEquals(0, Evaluator.evaluate(new ChessGame()));
+    }
+
+    @Test
+    void symmetricForBothColors() {
+        for (Perft.Reference reference : Perft.REFERENCES) {
+            ChessGame game = Fen.parse(reference.fen());
+            ChessGame flipped = Fen.parse(flip(reference.fen()));
+            assertEquals(Evaluator.evaluate(game), Evaluator.evaluate(flipped), reference.name());
+        }
+    }
+
+    @Test
+    void extraMaterialWins() {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/3QK3 w - - 0 1");
+        assertTrue(Evaluator.evaluate(game) > 800);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertTrue(Evaluator.evaluate(game) < -800);
+    }
+
+    @Test
+    void centralKnightBeatsCornerKnight() {
+        ChessGame center = Fen.parse("4k3/8/8/8/3N4/8/8/4K3 w - - 0 1");
+        ChessGame corner = Fen.parse("4k3/8/8/8/8/8/8/N3K3 w - - 0 1");
+        assertTrue(Evaluator.evaluate(center) > Evaluator.evaluate(corner));
+    }
+
+    @Test
+    void packedScoresRoundTrip() {
+        int[] values = {0, 1, -1, 300, -300, 32000, -32000};
+        for (int middlegame : values) {
+            for (int endgame : values) {
+                int packed = Evaluator.pack(middlegame, endgame);
+                assertEquals(middlegame, Evaluator.middlegameOf(packed));
+                assertEquals(endgame, Evaluator.endgameOf(packed));
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package chess.engine;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveList;
+import chess.Perft;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovePickerTests {
+
+    private static Set<Integer> legalMoves(ChessGame game) {
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        Set<Integer> set = new HashSet<>();
+        for (int i = 0; i < moves.size(); i++) {
+            set.add(moves.get(i));
+        }
+        return set;
+    }
+
+    @Test
+    void handsOutEveryLegalMoveOnce() {
+        MoveOrdering ordering = new MoveOrdering();
+        MovePicker picker = new MovePicker();
+        // a move from another position, which is not legal in all of these
+        int stale = Move.encode(BitBoard.square(2, 5), BitBoard.square(4, 5), Move.DOUBLE_PUSH);
+        ordering.cutoff(new ChessGame().getBoard().getBitBoard(), stale, 3, 4, new int[0], 0);
+        for (Perft.Reference reference : Perft.REFERENCES) {
+            ChessGame game = Fen.parse(reference.fen());
+            Set<Integer> legal = legalMoves(game);
+            int first = legal.iterator().next();
+            ordering.cutoff(game.getBoard().getBitBoard(), first, 3, 4, new int[0], 0);
+
+            picker.init(game, ordering, 3, first, stale, game.isInCheck(game.getTeamTurn()), false);
+            Set<Integer> picked = new HashSet<>();
+            int move;
+            while ((move = picker.next()) != Move.NONE) {
+                assertTrue(picked.add(move), "Picked twice: " + Move.toString(move));
+            }
+            assertEquals(legal, picked, reference.name());
+            assertTrue(Move.sameMove(first, legalFirst(game, ordering, first)), "The remembered move should come first");
+        }
+    }
+
+    private static int legalFirst(ChessGame game, MoveOrdering ordering, int pvMove) {
+        MovePicker picker = new MovePicker();
+        picker.init(game, ordering, 0, pvMove, Move.NONE, false, false);
+        return picker.next();
+    }
+
+    @Test
+    void winningCapturesComeBeforeQuietMoves() {
+        // the rook can take a free queen
+        ChessGame game = Fen.parse("4k3/8/3q4/8/8/8/8/3RK3 w - - 0 1");
+        MovePicker picker = new MovePicker();
+        picker.init(game, new MoveOrdering(), 0, Move.NONE, Move.NONE, false, false);
+        int move = picker.next();
+        assertTrue(Move.isCapture(move));
+        assertEquals(BitBoard.square(6, 4), Move.to(move));
+    }
+
+    @Test
+    void quiescenceSkipsQuietAndLosingMoves() {
+        // Qxd5 loses the queen to the e6 pawn; nothing else captures
+        ChessGame game = Fen.parse("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1");
+        MovePicker picker = new MovePicker();
+        picker.init(game, new MoveOrdering(), 0, Move.NONE, Move.NONE, false, true);
+        assertEquals(Move.NONE, picker.next());
+    }
+
+    @Test
+    void evasionsOnlyInCheck() {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/r3K3 w - - 0 1");
+        MovePicker picker = new MovePicker();
+        picker.init(game, new MoveOrdering(), 0, Move.NONE, Move.NONE, true, true);
+        Set<Integer> picked = new HashSet<>();
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            picked.add(move);
+        }
+        assertEquals(legalMoves(game), picked, "In check, quiescence should look at every evasion");
+    }
+}
@@ -0,0 +1,47 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.Perft;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSearchTests {
+
+    @Test
+    void findsTheSameMateWithHelpers() {
+        ChessGame game = Fen.parse("7k/8/8/8/8/8/R7/1R4K1 w - - 0 1");
+        try (ParallelSearch search = new ParallelSearch(4, new TranspositionTable(8))) {
+            SearchResult result = search.search(game, SearchLimits.depth(5));
+            assertEquals(Search.MATE - 3, result.score());
+            assertNotNull(result.bestMove());
+        }
+    }
+
+    @Test
+    void countsEveryThreadsNodes() {
+        ChessGame game = Fen.parse(Perft.REFERENCES.get(1).fen());
+        TranspositionTable table = new TranspositionTable(8);
+        try (ParallelSearch search = new ParallelSearch(3, table)) {
+            SearchResult result = search.search(game, SearchLimits.depth(4));
+            assertEquals(4, result.depth());
+            assertTrue(result.nodes() > 0);
+            assertTrue(result.nodesPerSecond() > 0);
+            assertTrue(game.validMoves(result.bestMove().getStartPosition()).contains(result.bestMove()));
+        }
+    }
+
+    @Test
+    void singleThreadNeedsNoHelpers() {
+        try (ParallelSearch search = new ParallelSearch(1, new TranspositionTable(1))) {
+            SearchResult result = search.search(new ChessGame(), SearchLimits.depth(3));
+            ChessMove move = result.bestMove();
+            assertNotNull(move);
+            assertEquals(1, search.threads());
+            assertNotEquals(new ChessPosition(1, 5), move.getStartPosition(), "Should not open with a king move");
+        }
+    }
+}
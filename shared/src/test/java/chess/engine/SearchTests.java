@@ -0,0 +1,86 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.Perft;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTests {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+
+    @Test
+    void findsMateInOne() {
+        ChessGame game = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        assertEquals(move(1, 1, 8, 1), result.bestMove());
+        assertEquals(Search.MATE - 1, result.score());
+        assertTrue(Search.isMateScore(result.score()));
+    }
+
+    @Test
+    void findsMateInTwo() {
+        // 1. Rb7 shuts the king on the back rank, then 2. Ra8 mates
+        ChessGame game = Fen.parse("7k/8/8/8/8/8/R7/1R4K1 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(5));
+        assertEquals(Search.MATE - 3, result.score(), "Should see the rook ladder mate");
+        assertEquals(result.bestMove(), result.principalVariation().get(0));
+        assertTrue(result.principalVariation().size() >= 3);
+    }
+
+    @Test
+    void takesHangingQueen() {
+        ChessGame game = Fen.parse("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        assertEquals(move(1, 4, 5, 4), result.bestMove());
+        assertTrue(result.score() > 0);
+    }
+
+    @Test
+    void leavesGameUnchanged() {
+        ChessGame game = Fen.parse(Perft.REFERENCES.get(1).fen());
+        long key = game.getZobristKey();
+        new Search().search(game, SearchLimits.depth(3));
+        assertEquals(key, game.getZobristKey());
+    }
+
+    @Test
+    void respectsNodeBudget() {
+        ChessGame game = Fen.parse(Perft.REFERENCES.get(1).fen());
+        SearchResult result = new Search().search(game, SearchLimits.nodes(5_000));
+        assertNotNull(result.bestMove(), "A move should be given even when the budget runs out");
+        assertTrue(result.nodes() <= 5_000);
+    }
+
+    @Test
+    void stopsWhenAsked() throws InterruptedException {
+        Search search = new Search();
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignored) {
+            }
+            search.stop();
+        });
+        stopper.start();
+        long start = System.nanoTime();
+        SearchResult result = search.search(new ChessGame(), SearchLimits.millis(60_000));
+        stopper.join();
+        assertTrue(System.nanoTime() - start < 10_000_000_000L, "Search should stop long before its time limit");
+        assertNotNull(result.bestMove());
+    }
+
+    @Test
+    void noMoveWhenCheckmated() {
+        ChessGame game = Fen.parse("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        assertNull(result.bestMove());
+        assertTrue(result.principalVariation().isEmpty());
+    }
+}
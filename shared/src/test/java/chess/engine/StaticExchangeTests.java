@@ -0,0 +1,69 @@
+package chess.engine;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StaticExchangeTests {
+    // shared by every test, left holding the last exchange as the move picker's is
+    private static final int[] SCRATCH = new int[StaticExchange.MAX_CAPTURES];
+
+    private static int see(String fen, String from, String to, int flags) {
+        ChessGame game = Fen.parse(fen);
+        int move = Move.encode(square(from), square(to), flags);
+        BitBoard bits = game.getBoard().getBitBoard();
+        int value = StaticExchange.evaluate(bits, move);
+        assertEquals(value, StaticExchange.evaluate(bits, move, SCRATCH), "A reused buffer should give the same answer");
+        return value;
+    }
+
+    private static int square(String name) {
+        return BitBoard.square(name.charAt(1) - '0', name.charAt(0) - 'a' + 1);
+    }
+
+    @Test
+    void undefendedPieceIsWonOutright() {
+        assertEquals(Evaluator.PIECE_VALUES[4], see("4k3/8/8/3r4/8/8/8/3RK3 w - - 0 1", "d1", "d5", Move.CAPTURE));
+    }
+
+    @Test
+    void pawnTakesDefendedKnight() {
+        // wins the knight, gives back the pawn
+        assertEquals(220, see("4k3/8/4p3/3n4/4P3/8/8/4K3 w - - 0 1", "e4", "d5", Move.CAPTURE));
+    }
+
+    @Test
+    void queenTakesDefendedPawn() {
+        assertEquals(-800, see("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1", "d1", "d5", Move.CAPTURE));
+    }
+
+    @Test
+    void rookBehindRookJoinsIn() {
+        // RxR, RxR, RxR: the doubled rooks win a rook
+        assertEquals(500, see("3rk3/8/8/3r4/8/8/3R4/3RK3 w - - 0 1", "d2", "d5", Move.CAPTURE));
+        // with only one rook behind, black recaptures and it is even
+        assertEquals(0, see("3rk3/8/8/3r4/8/8/3R4/4K3 w - - 0 1", "d2", "d5", Move.CAPTURE));
+    }
+
+    @Test
+    void kingOnlyRecapturesWhenItIsSafe() {
+        // the e4 pawn guards d5, so the king cannot take the rook back
+        assertEquals(100, see("8/8/4k3/3p4/4P3/8/8/3RK3 w - - 0 1", "d1", "d5", Move.CAPTURE));
+        assertEquals(-400, see("8/8/4k3/3p4/8/8/8/3RK3 w - - 0 1", "d1", "d5", Move.CAPTURE));
+    }
+
+    @Test
+    void quietMoveOntoAttackedSquareLoses() {
+        assertEquals(-320, see("4k3/8/8/8/4p3/8/8/4K1N1 w - - 0 1", "g1", "f3", 0));
+        assertEquals(0, see("4k3/8/8/8/8/8/8/4K1N1 w - - 0 1", "g1", "f3", 0));
+    }
+
+    @Test
+    void enPassantWinsAPawn() {
+        assertEquals(100, see("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5", "d6", Move.CAPTURE | Move.EN_PASSANT));
+    }
+}
@@ -0,0 +1,96 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.Perft;
+import chess.tablebase.Tablebase;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTests {
+
+    @Test
+    void storedEntriesReadBack() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(1 << 16, table.capacity(), "1 MB holds 65536 sixteen-byte entries");
+        int move = Move.encode(12, 28, Move.DOUBLE_PUSH);
+        table.store(0x1234_5678_9ABC_DEF0L, move, -250, 7, TranspositionTable.LOWER, 3);
+
+        long data = table.probe(0x1234_5678_9ABC_DEF0L);
+        assertEquals(move, TranspositionTable.move(data));
+        assertEquals(-250, TranspositionTable.score(data, 3));
+        assertEquals(7, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+        assertEquals(0L, table.probe(0x1234_5678_9ABC_DEF1L), "Other keys should miss");
+    }
+
+    @Test
+    void mateScoresAreStoredRelativeToThePosition() {
+        TranspositionTable table = new TranspositionTable(1);
+        // mate in 3 plies from a position 4 plies into the search
+        table.store(42L, Move.NONE, Search.MATE - 7, 5, TranspositionTable.EXACT, 4);
+        assertEquals(Search.MATE - 5, TranspositionTable.score(table.probe(42L), 2),
+                "Reached 2 plies in, the same mate is 5 plies from the root");
+    }
+
+    @Test
+    void tablebaseMatesDeepInTheSearchStayMates() {
+        TranspositionTable table = new TranspositionTable(1);
+        // a tablebase win in 80 plies probed 120 plies into the search
+        int score = Search.tablebaseScore(80, 120);
+        assertEquals(Search.MATE - 200, score);
+        assertTrue(Search.isMateScore(score));
+        table.store(43L, Move.NONE, score, 1, TranspositionTable.EXACT, 120);
+        assertEquals(Search.MATE - 83, TranspositionTable.score(table.probe(43L), 3),
+                "Reached 3 plies in, the same mate is 83 plies from the root");
+
+        int loss = Search.tablebaseScore(-(Tablebase.MAX_DISTANCE - 1) - 1, Search.MAX_PLY - 1);
+        assertTrue(Search.isMateScore(loss));
+        table.store(44L, Move.NONE, loss, 1, TranspositionTable.EXACT, Search.MAX_PLY - 1);
+        assertEquals(-Search.MATE + Tablebase.MAX_DISTANCE - 1, TranspositionTable.score(table.probe(44L), 0));
+    }
+
+    @Test
+    void deeperEntriesSurviveShallowOnes() {
+        TranspositionTable table = new TranspositionTable(1);
+        long first = 5L;
+        long second = first + table.capacity();
+        table.newSearch();
+        table.store(first, Move.NONE, 10, 8, TranspositionTable.EXACT, 0);
+        table.store(second, Move.NONE, 20, 2, TranspositionTable.EXACT, 0);
+        assertNotEquals(0L, table.probe(first), "Shallow result should not push out a deeper one");
+        assertEquals(0L, table.probe(second));
+
+        table.newSearch();
+        table.store(second, Move.NONE, 20, 2, TranspositionTable.EXACT, 0);
+        assertNotEquals(0L, table.probe(second), "Entries from an earlier search give way");
+    }
+
+    @Test
+    void sharedAcrossThreads() throws Exception {
+        TranspositionTable table = new TranspositionTable(4);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<SearchResult>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                ChessGame game = Fen.parse(Perft.REFERENCES.get(i % 2).fen());
+                results.add(pool.submit(() -> new Search(table).search(game, SearchLimits.depth(4))));
+            }
+            for (Future<SearchResult> result : results) {
+                assertNotNull(result.get().bestMove());
+                assertEquals(4, result.get().depth());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(table.hashfull() > 0);
+    }
+}
@@ -0,0 +1,143 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PgnReaderTests {
+
+    private static final String OPERA_GAME = """
+            [Event "Paris"]
+            [Site "Paris FRA"]
+            [Date "1858.??.??"]
+            [White "Paul Morphy"]
+            [Black "Duke Karl / Count Isouard"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 d6 3. d4 Bg4 {This is a weak move already.} 4. dxe5 Bxf3 5. Qxf3
+            dxe5 6. Bc4 Nf6 7. Qb3 Qe7 8. Nc3 c6 9. Bg5 $6 b5 10. Nxb5! cxb5 11. Bxb5+ Nbd7
+            12. O-O-O Rd8 13. Rxd7 (13. Bxd7+ Rxd7) Rxd7 14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+
+            Nxb8 17. Rd8# 1-0
+            """;
+
+    private static PgnReader reader(String pgn, int bufferSize) {
+        return new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8))), bufferSize);
+    }
+
+    private static List<Integer> readMoves(PgnReader reader) throws IOException {
+        List<Integer> moves = new ArrayList<>();
+        int move;
+        while ((move = reader.nextMove()) != Move.NONE) {
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    @Test
+    void readsHeadersAndMoves() throws IOException {
+        // a tiny buffer makes tokens straddle refills
+        for (int bufferSize : new int[]{7, 1 << 16}) {
+            try (PgnReader reader = reader(OPERA_GAME, bufferSize)) {
+                assertTrue(reader.nextGame());
+                assertEquals("Paul Morphy", reader.headers().get("White"));
+                assertEquals("Duke Karl / Count Isouard", reader.headers().get("Black"));
+                assertEquals(33, readMoves(reader).size(), "Variations and comments should be skipped");
+                assertEquals("1-0", reader.result());
+                assertTrue(reader.game().isInCheckmate(ChessGame.TeamColor.BLACK));
+                assertFalse(reader.nextGame());
+                assertEquals(1, reader.gamesRead());
+            }
+        }
+    }
+
+    @Test
+    void readsManyGamesAndSkipsUnreadMoves() throws IOException {
+        String pgn = OPERA_GAME + "\n" + OPERA_GAME + "\n" + OPERA_GAME;
+        try (PgnReader reader = reader(pgn, 1 << 10)) {
+            assertTrue(reader.nextGame());
+            reader.nextMove();
+            assertTrue(reader.nextGame(), "The rest of the first game should be skipped");
+            assertEquals(33, readMoves(reader).size());
+            assertTrue(reader.nextGame());
+            assertEquals(33, readMoves(reader).size());
+            assertFalse(reader.nextGame());
+        }
+    }
+
+    @Test
+    void startsFromFenHeader() throws IOException {
+        String pgn = """
+                [SetUp "1"]
+                [FEN "4k3/P7/8/3pP3/8/8/8/4K3 w - d6 0 1"]
+
+                1. exd6 Kd7 2. a8=Q Kxd6 3. Qb8+ *
+                """;
+        try (PgnReader reader = reader(pgn, 1 << 16)) {
+            assertTrue(reader.nextGame());
+            List<Integer> moves = readMoves(reader);
+            assertEquals(5, moves.size());
+            assertTrue(Move.isEnPassant(moves.get(0)));
+            assertEquals(chess.ChessPiece.PieceType.QUEEN, Move.promotion(moves.get(2)));
+            assertEquals("*", reader.result());
+            assertEquals("1Q6/8/3k4/8/8/8/8/4K3 b - - 1 3", Fen.write(reader.game()));
+        }
+    }
+
+    @Test
+    void gameWithoutResultEndsAtNextHeaders() throws IOException {
+        String pgn = "[Event \"a\"]\n\n1. e4 e5\n\n[Event \"b\"]\n\n1. d4 1/2-1/2\n";
+        try (PgnReader reader = reader(pgn, 1 << 16)) {
+            assertTrue(reader.nextGame());
+            assertEquals(2, readMoves(reader).size());
+            assertTrue(reader.nextGame());
+            assertEquals("b", reader.headers().get("Event"));
+            assertEquals(1, readMoves(reader).size());
+            assertEquals("1/2-1/2", reader.result());
+        }
+    }
+
+    @Test
+    void illegalMoveSkipsToNextGame() throws IOException {
+        String pgn = "[Event \"bad\"]\n\n1. e4 e5 2. Ke3 Nc6 1-0\n\n" + OPERA_GAME;
+        try (PgnReader reader = reader(pgn, 1 << 16)) {
+            assertTrue(reader.nextGame());
+            reader.nextMove();
+            reader.nextMove();
+            PgnException error = assertThrows(PgnException.class, reader::nextMove);
+            assertTrue(error.getMessage().contains("Ke3"), error.getMessage());
+            assertTrue(reader.nextGame());
+            assertEquals("Paul Morphy", reader.headers().get("White"));
+            assertEquals(33, readMoves(reader).size());
+        }
+    }
+
+    @Test
+    void readsMappedFile() throws IOException {
+        Path file = Files.createTempFile("games", ".pgn");
+        try {
+            Files.writeString(file, OPERA_GAME.repeat(20));
+            try (PgnReader reader = PgnReader.open(file)) {
+                int games = 0;
+                while (reader.nextGame()) {
+                    assertEquals(33, readMoves(reader).size());
+                    games++;
+                }
+                assertEquals(20, games);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package chess.pgn;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveUndo;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PgnWriterTests {
+
+    private static final String IMMORTAL_GAME = """
+            [Event "London"]
+            [Date "1851.06.21"]
+            [White "Adolf Anderssen"]
+            [Black "Lionel Kieseritzky"]
+            [Result "1-0"]
+            [Opening "King's Gambit"]
+
+            1. e4 e5 2. f4 exf4 3. Bc4 Qh4+ 4. Kf1 b5 5. Bxb5 Nf6 6. Nf3 Qh6 7. d3 Nh5
+            8. Nh4 Qg5 9. Nf5 c6 10. g4 Nf6 11. Rg1 cxb5 12. h4 Qg6 13. h5 Qg5 14. Qf3 Ng8
+            15. Bxf4 Qf6 16. Nc3 Bc5 17. Nd5 Qxb2 18. Bd6 Bxg1 19. e5 Qxa1+ 20. Ke2 Na6
+            21. Nxg7+ Kd8 22. Qf6+ Nxf6 23. Be7# 1-0
+            """;
+
+    private static PgnReader reader(String pgn) {
+        return new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static List<Integer> readMoves(PgnReader reader) throws IOException {
+        List<Integer> moves = new ArrayList<>();
+        int move;
+        while ((move = reader.nextMove()) != Move.NONE) {
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    private static String write(Map<String, String> headers, ChessGame game) throws IOException {
+        StringWriter out = new StringWriter();
+        PgnWriter writer = new PgnWriter(out);
+        writer.write(headers, game);
+        assertEquals(1, writer.gamesWritten());
+        return out.toString();
+    }
+
+    @Test
+    void roundTripsThroughReader() throws IOException {
+        Map<String, String> headers;
+        ChessGame game;
+        List<Integer> moves;
+        try (PgnReader reader = reader(IMMORTAL_GAME)) {
+            assertTrue(reader.nextGame());
+            moves = readMoves(reader);
+            headers = reader.headers();
+            game = reader.game();
+        }
+        String pgn = write(headers, game);
+        assertTrue(pgn.startsWith("[Event \"London\"]\n[Site \"?\"]\n[Date \"1851.06.21\"]\n[Round \"?\"]\n"),
+                "The Seven Tag Roster should come first, in order");
+        assertTrue(pgn.contains("[Opening \"King's Gambit\"]\n\n1. e4 e5 2. f4 exf4 3. Bc4 Qh4+ 4. Kf1 b5"));
+        assertTrue(pgn.endsWith("23. Be7# 1-0\n\n"));
+        for (String line : pgn.split("\n")) {
+            assertTrue(line.length() <= 80, line);
+        }
+
+        try (PgnReader reader = reader(pgn)) {
+            assertTrue(reader.nextGame());
+            assertEquals(moves, readMoves(reader));
+            assertEquals(headers.get("Black"), reader.headers().get("Black"));
+            assertEquals("1-0", reader.result());
+        }
+    }
+
+    @Test
+    void writesSetUpPositionWithBlackToMove() throws IOException {
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/4K2R b K - 0 12");
+        MoveUndo undo = new MoveUndo();
+        game.makeMove(San.parse(game, "Kd7"), undo);
+        game.makeMove(San.parse(game, "O-O"), undo);
+        String pgn = write(Map.of(), game);
+        assertTrue(pgn.contains("[Result \"*\"]\n[SetUp \"1\"]\n[FEN \"4k3/8/8/8/8/8/8/4K2R b K - 0 12\"]\n"));
+        assertTrue(pgn.endsWith("\n\n12... Kd7 13. O-O *\n\n"));
+    }
+
+    @Test
+    void gameWithoutMovesAndResultFromPosition() throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Event", "Say \"hi\"");
+        assertEquals("""
+                [Event "Say \\"hi\\""]
+                [Site "?"]
+                [Date "?"]
+                [Round "?"]
+                [White "?"]
+                [Black "?"]
+                [Result "*"]
+
+                *
+
+                """, write(headers, null));
+
+        ChessGame mated = Fen.parse("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        assertTrue(write(Map.of(), mated).contains("[Result \"0-1\"]"));
+    }
+
+    @Test
+    void gameStoredWithoutMovesStartsFromItsPosition() throws IOException {
+        Gson gson = new Gson();
+        ChessGame game = new ChessGame();
+        MoveUndo undo = new MoveUndo();
+        for (String san : new String[]{"f3", "e5", "g4", "Qh4#"}) {
+            game.makeMove(San.parse(game, san), undo);
+        }
+        // as stored before games kept their moves
+        JsonObject json = gson.toJsonTree(game).getAsJsonObject();
+        json.remove("history");
+        ChessGame stored = gson.fromJson(json, ChessGame.class);
+
+        String pgn = write(Map.of(), stored);
+        assertTrue(pgn.contains("[Result \"0-1\"]\n[SetUp \"1\"]\n[FEN \"" + Fen.write(game) + "\"]\n"), pgn);
+        assertTrue(pgn.endsWith("\n\n0-1\n\n"), pgn);
+    }
+}
@@ -0,0 +1,78 @@
+package chess.pgn;
+
+import chess.BitBoard;
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SanTests {
+
+    private static int square(String name) {
+        return BitBoard.square(name.charAt(1) - '0', name.charAt(0) - 'a' + 1);
+    }
+
+    @Test
+    void pawnAndPieceMoves() {
+        ChessGame game = new ChessGame();
+        int move = San.parse(game, "e4");
+        assertEquals(square("e2"), Move.from(move));
+        assertEquals(square("e4"), Move.to(move));
+        assertEquals(square("g1"), Move.from(San.parse(game, "Nf3")));
+        assertEquals(square("g1"), Move.from(San.parse(game, "Ng1-f3")), "Long algebraic should be accepted");
+    }
+
+    @Test
+    void disambiguation() {
+        // knights on b1 and f1 can both reach d2
+        ChessGame game = Fen.parse("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1");
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "Nd2"));
+        assertEquals(square("b1"), Move.from(San.parse(game, "Nbd2")));
+        assertEquals(square("f1"), Move.from(San.parse(game, "Nfd2")));
+    }
+
+    @Test
+    void castlingAndPromotion() {
+        ChessGame game = Fen.parse("r3k2r/1P6/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertTrue(Move.isCastle(San.parse(game, "O-O")));
+        assertEquals(square("c1"), Move.to(San.parse(game, "O-O-O+")));
+        assertEquals(square("c1"), Move.to(San.parse(game, "0-0-0")));
+        int promotion = San.parse(game, "bxa8=N");
+        assertTrue(Move.isCapture(promotion));
+        assertEquals(chess.ChessPiece.PieceType.KNIGHT, Move.promotion(promotion));
+        assertEquals(chess.ChessPiece.PieceType.QUEEN, Move.promotion(San.parse(game, "b8Q!?")));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(game, "b8"), "The promotion piece must be given");
+    }
+
+    @Test
+    void writesNotation() {
+        String[][] cases = {
+                {Fen.START, "e4"},
+                {Fen.START, "Nf3"},
+                {"rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2", "exd5"},
+                {"4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1", "Nbd2"},
+                {"4k3/8/8/8/R7/8/8/R3K3 w - - 0 1", "R1a2"},
+                {"4k3/8/8/8/8/Q7/8/Q1Q1K3 w - - 0 1", "Qa1b2"},
+                {"r3k2r/1P6/8/8/8/8/8/R3K2R w KQkq - 0 1", "O-O"},
+                {"r3k2r/1P6/8/8/8/8/8/R3K2R w KQkq - 0 1", "O-O-O"},
+                {"r3k2r/1P6/8/8/8/8/8/R3K2R w KQkq - 0 1", "bxa8=N"},
+                {"r3k2r/1P6/8/8/8/8/8/R3K2R w KQkq - 0 1", "b8=Q+"},
+                {"r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4", "Qxf7#"},
+        };
+        for (String[] c : cases) {
+            ChessGame game = Fen.parse(c[0]);
+            assertEquals(c[1], San.toString(game, San.parse(game, c[1])));
+            assertEquals(c[0], Fen.write(game), "Writing a move should leave the game unchanged");
+        }
+    }
+
+    @Test
+    void rejectsIllegalOrMalformedMoves() {
+        ChessGame game = new ChessGame();
+        for (String san : new String[]{"e5", "Ke2", "O-O", "Nf9", "Zf3", "", "+"}) {
+            assertThrows(IllegalArgumentException.class, () -> San.parse(game, san), san);
+        }
+    }
+}
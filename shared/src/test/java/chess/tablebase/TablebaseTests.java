@@ -0,0 +1,219 @@
+package chess.tablebase;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveList;
+import chess.MoveUndo;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.pgn.San;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTests {
+
+    @TempDir
+    static Path directory;
+    private static TablebaseGenerator generator;
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        generator = new TablebaseGenerator();
+        for (String material : new String[]{"KQvK", "KvKR", "KPvK"}) {
+            generator.generate(material, directory);
+        }
+        tablebase = Tablebase.open(directory);
+    }
+
+    private static int longestWin(String material) {
+        int longest = 0;
+        for (byte value : generator.full(Material.parse(material))) {
+            if (value > 0) {
+                longest = Math.max(longest, value);
+            }
+        }
+        return longest;
+    }
+
+    @Test
+    void longestMatesMatchKnownValues() {
+        assertEquals(19, longestWin("KQvK"), "KQK takes at most ten moves to mate");
+        assertEquals(31, longestWin("KRvK"), "KRK takes at most sixteen moves to mate");
+        assertEquals(3, tablebase.maxPieces());
+        assertTrue(tablebase.materials().containsAll(List.of("KQvK", "KRvK", "KPvK", "KBvK", "KNvK", "KvK")));
+    }
+
+    @Test
+    void knownPositions() {
+        int mateInOne = tablebase.probe(Fen.parse("7k/8/6K1/8/8/8/8/1Q6 w - - 0 1"));
+        assertTrue(Tablebase.isWin(mateInOne));
+        assertEquals(1, Tablebase.distance(mateInOne));
+        assertTrue(Tablebase.isCheckmate(tablebase.probe(Fen.parse("Q6k/8/6K1/8/8/8/8/8 b - - 0 1"))));
+        assertTrue(Tablebase.isStalemate(tablebase.probe(Fen.parse("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"))));
+
+        // a king on the sixth in front of its pawn wins whoever moves
+        assertTrue(Tablebase.isWin(tablebase.probe(Fen.parse("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"))));
+        assertTrue(Tablebase.isLoss(tablebase.probe(Fen.parse("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1"))));
+        // the same with colors swapped is read from the same table
+        assertTrue(Tablebase.isWin(tablebase.probe(Fen.parse("8/8/8/8/4p3/4k3/8/4K3 b - - 0 1"))));
+        // a rook pawn with the defending king in the corner is a draw
+        assertEquals(Tablebase.DRAW, tablebase.probe(Fen.parse("k7/8/1K6/P7/8/8/8/8 w - - 0 1")));
+        assertEquals(Tablebase.DRAW, tablebase.probe(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+    }
+
+    @Test
+    void positionsOutsideTheTables() {
+        assertEquals(Tablebase.NOT_FOUND, tablebase.probe(new ChessGame()));
+        assertEquals(Tablebase.NOT_FOUND, tablebase.probe(Fen.parse("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1")),
+                "Castling rights aren't in the tables");
+        assertEquals(Tablebase.NOT_FOUND, tablebase.probe(Fen.parse("4k3/8/8/8/8/8/8/QQ2K3 w - - 0 1")));
+    }
+
+    /**
+     * Every result should follow from its children's, by ChessGame's own
+     * move generation
+     */
+    @Test
+    void resultsAgreeWithMoves() {
+        Random random = new Random(7);
+        String[] extras = {"Q", "q", "R", "r", "P", "p"};
+        int checked = 0;
+        while (checked < 600) {
+            String extra = extras[checked % extras.length];
+            ChessGame game = randomPosition(random, extra);
+            if (game == null) {
+                continue;
+            }
+            checked++;
+            int result = tablebase.probe(game);
+            assertNotEquals(Tablebase.NOT_FOUND, result, Fen.write(game));
+            assertConsistent(game, result);
+        }
+    }
+
+    private static ChessGame randomPosition(Random random, String extra) {
+        char[] board = new char[64];
+        Arrays.fill(board, '.');
+        String pieces = "Kk" + extra;
+        for (char piece : pieces.toCharArray()) {
+            int square;
+            do {
+                square = random.nextInt(64);
+            } while (board[square] != '.'
+                    || (Character.toLowerCase(piece) == 'p' && (square < 8 || square >= 56)));
+            board[square] = piece;
+        }
+        StringBuilder fen = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                char piece = board[row * 8 + col];
+                if (piece == '.') {
+                    empty++;
+                } else {
+                    if (empty > 0) {
+                        fen.append(empty);
+                        empty = 0;
+                    }
+                    fen.append(piece);
+                }
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(random.nextBoolean() ? " w" : " b").append(" - - 0 1");
+        ChessGame game = Fen.parse(fen.toString());
+        ChessGame.TeamColor other = game.getTeamTurn() == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        return game.isInCheck(other) ? null : game;
+    }
+
+    private static void assertConsistent(ChessGame game, int result) {
+        String fen = Fen.write(game);
+        MoveList moves = new MoveList();
+        game.generateLegalMoves(moves);
+        if (moves.isEmpty()) {
+            boolean inCheck = game.isInCheck(game.getTeamTurn());
+            assertEquals(inCheck, Tablebase.isCheckmate(result), fen);
+            assertEquals(!inCheck, Tablebase.isStalemate(result), fen);
+            return;
+        }
+        MoveUndo undo = new MoveUndo();
+        int fastestWin = Integer.MAX_VALUE;
+        int slowestLoss = -1;
+        boolean draw = false;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i), undo);
+            int child = tablebase.probe(game);
+            game.unmakeMove(undo);
+            assertNotEquals(Tablebase.NOT_FOUND, child, fen);
+            if (Tablebase.isLoss(child)) {
+                fastestWin = Math.min(fastestWin, Tablebase.distance(child) + 1);
+            } else if (Tablebase.isWin(child)) {
+                slowestLoss = Math.max(slowestLoss, Tablebase.distance(child) + 1);
+            } else {
+                draw = true;
+            }
+        }
+        if (fastestWin != Integer.MAX_VALUE) {
+            assertTrue(Tablebase.isWin(result), fen);
+            assertEquals(fastestWin, Tablebase.distance(result), fen);
+        } else if (draw) {
+            assertTrue(Tablebase.isDraw(result), fen);
+        } else {
+            assertTrue(Tablebase.isLoss(result), fen);
+            assertEquals(slowestLoss, Tablebase.distance(result), fen);
+        }
+    }
+
+    @Test
+    void bestMoveMatesFastest() {
+        ChessGame game = Fen.parse("8/8/8/4k3/8/8/8/4K2R w - - 0 1");
+        int result = tablebase.probe(game);
+        MoveUndo undo = new MoveUndo();
+        for (int ply = Tablebase.distance(result); ply > 0; ply--) {
+            int move = tablebase.bestMove(game);
+            assertNotEquals(Move.NONE, move);
+            String san = San.toString(game, move);
+            game.makeMove(move, undo);
+            assertEquals(ply - 1, Tablebase.distance(tablebase.probe(game)), san);
+        }
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void searchScoresFromTables() {
+        ChessGame game = Fen.parse("8/8/8/4k3/8/8/8/4K2R w - - 0 1");
+        int result = tablebase.probe(game);
+        Search search = new Search();
+        search.useTablebase(tablebase);
+        SearchResult found = search.search(game, SearchLimits.depth(2));
+        assertEquals(Search.MATE - Tablebase.distance(result), found.score());
+    }
+
+    @Test
+    void writesEachTableOnce(@TempDir Path output) throws IOException {
+        TablebaseGenerator fresh = new TablebaseGenerator();
+        assertEquals(List.of(output.resolve("KQvK.tb"), output.resolve("KvK.tb")),
+                fresh.generate("KQvK", output));
+        assertEquals(List.of(output.resolve("KRvK.tb")), fresh.generate("KvKR", output),
+                "KQvK and KvK are already written and KRvK doesn't lead to KQvK");
+        assertEquals(List.of(), fresh.generate("KRvK", output));
+    }
+}